@@ -1,5 +1,7 @@
 package com.pawcare.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
 import jakarta.validation.constraints.NotBlank;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +32,39 @@ public class Models {
     }
 
     // --- Appointment ---
+    public enum AppointmentStatus {
+        PENDING(0, "Pending"),
+        APPROVED(1, "Approved by Vet"),
+        DONE(2, "Done");
+
+        public final byte code;        // stored form
+        private final String label;    // JSON form
+
+        AppointmentStatus(int code, String label){ this.code = (byte) code; this.label = label; }
+
+        @JsonValue public String label(){ return label; }
+
+        /** Label or constant name, any case; null for anything else. */
+        public static AppointmentStatus parse(String value){
+            if (value == null) return null;
+            String v = value.trim();
+            for (AppointmentStatus s : values()) if (s.label.equalsIgnoreCase(v) || s.name().equalsIgnoreCase(v)) return s;
+            return null;
+        }
+
+        @JsonCreator static AppointmentStatus fromJson(String value){
+            if (value == null || value.isBlank()) return null;
+            AppointmentStatus s = parse(value);
+            if (s == null) throw new IllegalArgumentException("Unknown appointment status: " + value);
+            return s;
+        }
+
+        public static AppointmentStatus fromCode(byte code){
+            for (AppointmentStatus s : values()) if (s.code == code) return s;
+            throw new IllegalArgumentException("Unknown appointment status code " + code);
+        }
+    }
+
     public static class Appointment {
         public Long id;
         public Long petId;
@@ -37,7 +72,7 @@ public class Models {
         public String date;           // YYYY-MM-DD
         public String time;           // HH:mm
         public String vet;
-        public String status;         // Pending / Approved by Vet / Done
+        public AppointmentStatus status;
         public String completedAt;    // YYYY-MM-DD (when marked Done)
     }
 
@@ -1,24 +1,53 @@
 package com.pawcare.repo;
 
 import com.pawcare.model.Models.*;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Repository
 public class InMemoryRepo {
 
-    private final Map<Long, Pet> pets = new ConcurrentHashMap<>();
-    private final Map<Long, Appointment> appts = new ConcurrentHashMap<>();
-    private final Map<Long, Prescription> rx = new ConcurrentHashMap<>();
-    private final Map<Long, User> users = new ConcurrentHashMap<>();
-    private final Map<Long, OperationLog> ops = new ConcurrentHashMap<>();
+    // Primary maps are id-ordered, so lists come back sorted without a sort
+    private final NavigableMap<Long, Pet> pets;
+    private final NavigableMap<Long, Appointment> appts;
+    private final NavigableMap<Long, Prescription> rx;
+    private final NavigableMap<Long, User> users;
+    private final NavigableMap<Long, OperationLog> ops;
+
+    // Log time index ordered by (epoch second of the local ts, id); ranges are sub-map views
+    private final ConcurrentSkipListMap<LogKey, OperationLog> opsByTime;
+
+    private record LogKey(long second, long id) implements Comparable<LogKey> {
+        public int compareTo(LogKey o){ return second != o.second ? Long.compare(second, o.second) : Long.compare(id, o.id); }
+    }
+
+    // Secondary indexes
+    private final SecondaryIndex<Long, Appointment> apptsByPet;
+    private final SecondaryIndex<String, Appointment> apptsByVet;
+    private final SecondaryIndex<AppointmentStatus, Appointment> apptsByStatus;
+    private final SecondaryIndex<Long, Prescription> rxByPet;
+    private final SecondaryIndex<Boolean, Prescription> rxByDispensed;
+    private final SecondaryIndex<Long, OperationLog> opsByPet;
 
     private final AtomicLong petSeq = new AtomicLong(0);
     private final AtomicLong apptSeq = new AtomicLong(0);
@@ -28,42 +57,133 @@ public class InMemoryRepo {
 
     private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
+    // Repeated owners, vets, drugs, species and log types: one shared String each, written as codes
+    private static final int MAX_TERMS = 1 << 20;
+    private final TermDictionary terms = new TermDictionary(MAX_TERMS);
+
+    // Durability: null store = memory only. Changes are applied and queued for the journal under
+    // writeLock, then awaited outside it, so concurrent writers share one fsync (group commit).
+    // A change whose entry fails to reach disk is already visible in memory, so once the journal has
+    // failed the repo is read-only: nothing is built on that state until a restart recovers from disk.
+    private final Object writeLock = new Object();
+    private final RepoStore store;
+    private final RepoStore.Snapshot state = new RepoStore.Snapshot() {
+        @Override public void write(RepoStore.SnapshotWriter out){ writeSnapshot(out); }
+        // Each segment defines its own terms, so it replays after a snapshot without the ones before it
+        @Override public void rolled(){ journalTerms.reset(); }
+    };
+    private final ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pending = new DataOutputStream(pendingBytes);
+    private final RepoCodec.Terms journalTerms = new RepoCodec.Terms(terms);
+
+    /** Memory only, seeded with sample data (benchmarks, fixtures). */
     public InMemoryRepo() {
-        // Seed sample data
-        Pet p1 = new Pet();
-        p1.id = nextPetId(); p1.name="Choco"; p1.species="Canine"; p1.breed="Beagle";
-        p1.gender="Female"; p1.age=3; p1.microchip="1234-5678";
-        p1.owner="Maria Santos"; p1.address="123 Mabini St."; p1.federation="N/A";
-        pets.put(p1.id, p1);
-        log("PET_CREATED", "Added pet Choco", p1.id);
-
-        Pet p2 = new Pet();
-        p2.id = nextPetId(); p2.name="Mimi"; p2.species="Feline"; p2.breed="Persian";
-        p2.gender="Male"; p2.age=2; p2.microchip="2233-4455";
-        p2.owner="John Dela Cruz"; p2.address="45 Narra St."; p2.federation="FCCI";
-        pets.put(p2.id, p2);
-        log("PET_CREATED", "Added pet Mimi", p2.id);
-
-        Appointment a1 = new Appointment();
-        a1.id = nextApptId(); a1.petId = p1.id; a1.owner = p1.owner;
-        a1.date = LocalDate.now().plusDays(2).toString(); a1.time="10:00"; a1.vet="Dr. Cruz"; a1.status="Pending";
-        appts.put(a1.id, a1);
-        log("APPT_CREATED", "Appointment created for " + p1.owner + " (Choco)", p1.id);
-
-        Prescription r1 = new Prescription();
-        r1.id = nextRxId(); r1.petId=p1.id; r1.pet=p1.name; r1.owner=p1.owner;
-        r1.drug="Amoxicillin"; r1.dosage="250 mg"; r1.directions="Twice daily";
-        r1.prescriber="Dr. Cruz"; r1.date=LocalDate.now().toString(); r1.dispensed=false;
-        rx.put(r1.id, r1);
-        log("RX_CREATED", "Rx issued for Choco (Amoxicillin)", p1.id);
-
-        users.put(nextUserId(), user("Admin","admin"));
-        users.put(nextUserId(), user("Dr. Cruz","vet"));
-        users.put(nextUserId(), user("Daisy","receptionist"));
-        users.put(nextUserId(), user("Paul","pharmacist"));
-    }
-
-    private User user(String name, String role){ User u = new User(); u.id = userSeq.get(); u.name = name; u.role = role; return u; }
+        this(null, new RepoImage(), false);
+    }
+
+    /**
+     * Backed by a journal + snapshots in {@code storeDir} (blank = memory only). The sample data is
+     * only seeded on the very first start.
+     */
+    @Autowired
+    public InMemoryRepo(
+            @Value("${pawcare.store.dir:data}") String storeDir,
+            @Value("${pawcare.store.fsync:true}") boolean fsync,
+            @Value("${pawcare.store.snapshot-bytes:67108864}") long snapshotBytes
+    ) throws IOException {
+        this(openStore(storeDir, fsync, snapshotBytes), new RepoImage());
+    }
+
+    InMemoryRepo(RepoStore store, RepoImage image) throws IOException {
+        this(store, image, store != null && store.recover(image));
+    }
+
+    private InMemoryRepo(RepoStore store, RepoImage image, boolean recovered) {
+        this.store = store;
+        List<Pet> petList = RepoImage.sortedById(image.pets);
+        List<Appointment> apptList = RepoImage.sortedById(image.appts);
+        List<Prescription> rxList = RepoImage.sortedById(image.rx);
+        List<User> userList = RepoImage.sortedById(image.users);
+        List<OperationLog> opList = RepoImage.sortedById(image.ops);
+        petList.forEach(this::intern);
+        apptList.forEach(this::intern);
+        rxList.forEach(this::intern);
+        opList.forEach(this::intern);
+
+        pets = RepoImage.byId(petList, p -> p.id);
+        appts = RepoImage.byId(apptList, a -> a.id);
+        rx = RepoImage.byId(rxList, r -> r.id);
+        users = RepoImage.byId(userList, u -> u.id);
+        ops = RepoImage.byId(opList, o -> o.id);
+
+        List<Map.Entry<LogKey, OperationLog>> byTime = new ArrayList<>(opList.size());
+        for (OperationLog o : opList) byTime.add(Map.entry(new LogKey(epochSecond(o.ts), o.id), o));
+        byTime.sort(Map.Entry.comparingByKey());   // near-sorted already: ids follow time
+        opsByTime = RepoImage.skipList(byTime, Map.Entry::getKey, Map.Entry::getValue);
+
+        apptsByPet = SecondaryIndex.build(apptList, a -> a.petId, a -> a.id);
+        apptsByVet = SecondaryIndex.build(apptList, a -> a.vet, a -> a.id);
+        apptsByStatus = SecondaryIndex.build(apptList, a -> a.status, a -> a.id);
+        rxByPet = SecondaryIndex.build(rxList, r -> r.petId, r -> r.id);
+        rxByDispensed = SecondaryIndex.build(rxList, r -> r.dispensed, r -> r.id);
+        opsByPet = SecondaryIndex.build(opList, o -> o.petId, o -> o.id);
+
+        advance(petSeq, Math.max(image.sequences[0], pets.isEmpty() ? 0 : pets.lastKey()));
+        advance(apptSeq, Math.max(image.sequences[1], appts.isEmpty() ? 0 : appts.lastKey()));
+        advance(rxSeq, Math.max(image.sequences[2], rx.isEmpty() ? 0 : rx.lastKey()));
+        advance(userSeq, Math.max(image.sequences[3], users.isEmpty() ? 0 : users.lastKey()));
+        advance(opSeq, Math.max(image.sequences[4], ops.isEmpty() ? 0 : ops.lastKey()));
+
+        if (!recovered) seed();   // memory only, or the first start of a new store
+    }
+
+    private static RepoStore openStore(String storeDir, boolean fsync, long snapshotBytes){
+        return storeDir == null || storeDir.isBlank() ? null : new RepoStore(Path.of(storeDir), fsync, snapshotBytes);
+    }
+
+    @PreDestroy
+    public void close(){
+        if (store != null) store.close(writeLock, state);
+    }
+
+    private void seed(){
+        write(() -> {
+            // Seed sample data
+            Pet p1 = new Pet();
+            p1.id = nextPetId(); p1.name="Choco"; p1.species="Canine"; p1.breed="Beagle";
+            p1.gender="Female"; p1.age=3; p1.microchip="1234-5678";
+            p1.owner="Maria Santos"; p1.address="123 Mabini St."; p1.federation="N/A";
+            putPet(p1);
+            log("PET_CREATED", "Added pet Choco", p1.id);
+
+            Pet p2 = new Pet();
+            p2.id = nextPetId(); p2.name="Mimi"; p2.species="Feline"; p2.breed="Persian";
+            p2.gender="Male"; p2.age=2; p2.microchip="2233-4455";
+            p2.owner="John Dela Cruz"; p2.address="45 Narra St."; p2.federation="FCCI";
+            putPet(p2);
+            log("PET_CREATED", "Added pet Mimi", p2.id);
+
+            Appointment a1 = new Appointment();
+            a1.id = nextApptId(); a1.petId = p1.id; a1.owner = p1.owner;
+            a1.date = LocalDate.now().plusDays(2).toString(); a1.time="10:00"; a1.vet="Dr. Cruz"; a1.status=AppointmentStatus.PENDING;
+            putAppt(a1);
+            log("APPT_CREATED", "Appointment created for " + p1.owner + " (Choco)", p1.id);
+
+            Prescription r1 = new Prescription();
+            r1.id = nextRxId(); r1.petId=p1.id; r1.pet=p1.name; r1.owner=p1.owner;
+            r1.drug="Amoxicillin"; r1.dosage="250 mg"; r1.directions="Twice daily";
+            r1.prescriber="Dr. Cruz"; r1.date=LocalDate.now().toString(); r1.dispensed=false;
+            putRx(r1);
+            log("RX_CREATED", "Rx issued for Choco (Amoxicillin)", p1.id);
+
+            putUser(user(nextUserId(), "Admin","admin"));
+            putUser(user(nextUserId(), "Dr. Cruz","vet"));
+            putUser(user(nextUserId(), "Daisy","receptionist"));
+            putUser(user(nextUserId(), "Paul","pharmacist"));
+        });
+    }
+
+    private User user(long id, String name, String role){ User u = new User(); u.id = id; u.name = name; u.role = role; return u; }
 
     private long nextPetId(){ return petSeq.incrementAndGet(); }
     private long nextApptId(){ return apptSeq.incrementAndGet(); }
@@ -78,43 +198,222 @@ public class InMemoryRepo {
         op.type = type;
         op.message = message;
         op.petId = petId;
-        ops.put(op.id, op);
+        indexOp(intern(op));
+        journal(o -> RepoCodec.op(o, journalTerms, op));
+    }
+
+    /** Runs a change under the write lock, then waits until its journal entry is on disk. */
+    private <T> T write(Supplier<T> change){
+        CompletableFuture<Long> durable = null;
+        T result;
+        synchronized (writeLock) {
+            if (store != null) store.checkWritable();
+            int terms = journalTerms.mark();
+            try {
+                result = change.get();
+                if (store != null && pendingBytes.size() > 0) durable = store.append(pendingBytes.toByteArray());
+            } finally {
+                pendingBytes.reset();
+                if (durable == null) journalTerms.rollback(terms);
+            }
+        }
+        if (durable != null) {
+            try {
+                durable.join();
+            } catch (CompletionException e) {
+                // The entry may not be on disk, and with it the terms it defined
+                synchronized (writeLock) { journalTerms.reset(); }
+                throw e;
+            }
+            synchronized (writeLock) { journalTerms.commit(); }
+            store.maybeSnapshot(writeLock, state);
+        }
+        return result;
     }
 
+    private void write(Runnable change){ write(() -> { change.run(); return null; }); }
+
+    // Adds a record to the current change's journal entry (caller holds writeLock)
+    private void journal(Consumer<DataOutputStream> record){ if (store != null) record.accept(pending); }
+
+    private void putPet(Pet p){ pets.put(intern(p).id, p); journal(o -> RepoCodec.pet(o, journalTerms, p)); }
+    private void putAppt(Appointment a){ indexAppt(intern(a)); journal(o -> RepoCodec.appt(o, journalTerms, a)); }
+    private void putRx(Prescription r){ indexRx(intern(r)); journal(o -> RepoCodec.rx(o, journalTerms, r)); }
+
+    private Pet intern(Pet p){
+        p.species = terms.intern(p.species); p.breed = terms.intern(p.breed); p.owner = terms.intern(p.owner);
+        if (p.procedures != null) for (Procedure pr : p.procedures) pr.vet = terms.intern(pr.vet);
+        return p;
+    }
+    private Appointment intern(Appointment a){ a.owner = terms.intern(a.owner); a.vet = terms.intern(a.vet); return a; }
+    private Prescription intern(Prescription r){
+        r.owner = terms.intern(r.owner); r.drug = terms.intern(r.drug); r.prescriber = terms.intern(r.prescriber);
+        return r;
+    }
+    private OperationLog intern(OperationLog op){ op.type = terms.intern(op.type); return op; }
+    private void putUser(User u){ users.put(u.id, u); journal(o -> RepoCodec.user(o, u)); }
+
+    private void indexAppt(Appointment a){
+        Appointment prev = appts.put(a.id, a);
+        if (prev != null) unindexAppt(prev);
+        apptsByPet.add(a.petId, a.id, a);
+        apptsByVet.add(a.vet, a.id, a);
+        apptsByStatus.add(a.status, a.id, a);
+    }
+
+    private void unindexAppt(Appointment a){
+        apptsByPet.remove(a.petId, a.id);
+        apptsByVet.remove(a.vet, a.id);
+        apptsByStatus.remove(a.status, a.id);
+    }
+
+    private void indexRx(Prescription r){
+        Prescription prev = rx.put(r.id, r);
+        if (prev != null) { rxByPet.remove(prev.petId, prev.id); rxByDispensed.remove(prev.dispensed, prev.id); }
+        rxByPet.add(r.petId, r.id, r);
+        rxByDispensed.add(r.dispensed, r.id, r);
+    }
+
+    private void indexOp(OperationLog op){
+        OperationLog prev = ops.put(op.id, op);
+        if (prev != null) { opsByTime.remove(new LogKey(epochSecond(prev.ts), prev.id)); opsByPet.remove(prev.petId, prev.id); }
+        opsByTime.put(new LogKey(epochSecond(op.ts), op.id), op);
+        opsByPet.add(op.petId, op.id, op);
+    }
+
+    private static long epochSecond(String ts){
+        if (ts.length() == 19 && ts.charAt(10) == 'T') {   // the yyyy-MM-ddTHH:mm:ss that log() writes, without a parser
+            int y = digits(ts, 0, 4), mo = digits(ts, 5, 7), d = digits(ts, 8, 10);
+            int h = digits(ts, 11, 13), mi = digits(ts, 14, 16), sec = digits(ts, 17, 19);
+            if (y >= 0 && mo >= 0 && d >= 0 && h >= 0 && mi >= 0 && sec >= 0) {
+                return LocalDateTime.of(y, mo, d, h, mi, sec).toEpochSecond(ZoneOffset.UTC);
+            }
+        }
+        return LocalDateTime.parse(ts, TS).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int digits(String s, int from, int to){
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+    private static long epochSecond(LocalDate day){ return day.atStartOfDay().toEpochSecond(ZoneOffset.UTC); }
+
     // Pets
-    public List<Pet> pets(){ return pets.values().stream().sorted(Comparator.comparing(p->p.id)).toList(); }
+    public List<Pet> pets(){ return List.copyOf(pets.values()); }
     public Optional<Pet> pet(long id){ return Optional.ofNullable(pets.get(id)); }
-    public Pet addPet(Pet p){ p.id = nextPetId(); pets.put(p.id,p); log("PET_CREATED","Added pet " + p.name, p.id); return p; }
-    public Pet updatePet(long id, Pet p){ p.id=id; pets.put(id,p); log("PET_UPDATED","Updated pet " + p.name, p.id); return p; }
-    public void removePet(long id){ Pet p = pets.remove(id); log("PET_DELETED","Deleted pet " + (p!=null?p.name:("#"+id)), id); }
+    public Pet addPet(Pet p){ return write(() -> { p.id = nextPetId(); putPet(p); log("PET_CREATED","Added pet " + p.name, p.id); return p; }); }
+    public Pet updatePet(long id, Pet p){ return write(() -> { p.id=id; putPet(p); log("PET_UPDATED","Updated pet " + p.name, p.id); return p; }); }
+    public void removePet(long id){
+        write(() -> {
+            Pet p = pets.remove(id);
+            journal(o -> RepoCodec.deleted(o, RepoCodec.PET_DELETED, id));
+            log("PET_DELETED","Deleted pet " + (p!=null?p.name:("#"+id)), id);
+        });
+    }
 
     // Appointments
-    public List<Appointment> appts(){ return appts.values().stream().sorted(Comparator.comparing(a->a.id)).toList(); }
-    public Appointment addAppt(Appointment a){ a.id=nextApptId(); a.status="Pending"; appts.put(a.id,a); log("APPT_CREATED","Appointment created for " + a.owner, a.petId); return a; }
+    public List<Appointment> appts(){ return List.copyOf(appts.values()); }
+    public Appointment addAppt(Appointment a){ return write(() -> { a.id=nextApptId(); a.status=AppointmentStatus.PENDING; putAppt(a); log("APPT_CREATED","Appointment created for " + a.owner, a.petId); return a; }); }
     public Optional<Appointment> appt(long id){ return Optional.ofNullable(appts.get(id)); }
-    public void approveAppt(long id){ Appointment a=appt(id).orElse(null); if(a!=null){ a.status="Approved by Vet"; log("APPT_APPROVED","Appointment approved for " + a.owner, a.petId); } }
-    public void doneAppt(long id){ Appointment a=appt(id).orElse(null); if(a!=null){ a.status="Done"; a.completedAt = LocalDate.now().toString(); log("APPT_DONE","Appointment done for " + a.owner, a.petId); } }
-    public void removeAppt(long id){ Appointment a = appts.remove(id); log("APPT_DELETED","Removed appointment #" + id, a!=null?a.petId:null); }
+    public void approveAppt(long id){ write(() -> { Appointment a=appt(id).orElse(null); if(a!=null){ setStatus(a, AppointmentStatus.APPROVED, null); log("APPT_APPROVED","Appointment approved for " + a.owner, a.petId); } }); }
+    public void doneAppt(long id){ write(() -> { Appointment a=appt(id).orElse(null); if(a!=null){ setStatus(a, AppointmentStatus.DONE, LocalDate.now().toString()); log("APPT_DONE","Appointment done for " + a.owner, a.petId); } }); }
+    public void removeAppt(long id){
+        write(() -> {
+            Appointment a = appts.remove(id);
+            if (a != null) unindexAppt(a);
+            journal(o -> RepoCodec.deleted(o, RepoCodec.APPT_DELETED, id));
+            log("APPT_DELETED","Removed appointment #" + id, a!=null?a.petId:null);
+        });
+    }
+
+    private void setStatus(Appointment a, AppointmentStatus status, String completedAt){
+        synchronized (a) {
+            AppointmentStatus old = a.status;
+            a.status = status;
+            if (completedAt != null) a.completedAt = completedAt;
+            apptsByStatus.move(old, status, a.id, a);
+            journal(o -> RepoCodec.appt(o, journalTerms, a));
+        }
+    }
+
+    /** Appointments matching every given filter (null = any), in id order, via the most selective index. */
+    public List<Appointment> appts(Long petId, String vet, String status){
+        AppointmentStatus code = AppointmentStatus.parse(status);
+        if (status != null && code == null) return List.of();   // no appointment has an unknown status
+        Predicate<Appointment> match = a -> (petId == null || petId.equals(a.petId))
+                && (vet == null || vet.trim().equalsIgnoreCase(String.valueOf(a.vet).trim()))
+                && (code == null || code == a.status);
+        if (petId != null) return apptsByPet.get(petId, match);
+        if (vet != null) return apptsByVet.get(vet, match);
+        if (code != null) return apptsByStatus.get(code, match);
+        return appts();
+    }
 
     // Prescriptions
-    public List<Prescription> rx(){ return rx.values().stream().sorted(Comparator.comparing(r->r.id)).toList(); }
-    public Prescription addRx(Prescription r){ r.id=nextRxId(); rx.put(r.id,r); log("RX_CREATED","Rx issued for " + r.pet + " (" + r.drug + ")", r.petId); return r; }
+    public List<Prescription> rx(){ return List.copyOf(rx.values()); }
+    public Prescription addRx(Prescription r){ return write(() -> { r.id=nextRxId(); putRx(r); log("RX_CREATED","Rx issued for " + r.pet + " (" + r.drug + ")", r.petId); return r; }); }
     public Optional<Prescription> getRx(long id){ return Optional.ofNullable(rx.get(id)); }
-    public void dispense(long id){ Prescription r = rx.get(id); if(r!=null){ r.dispensed=true; r.dispensedAt = LocalDate.now().toString(); log("RX_DISPENSED","Rx dispensed for " + r.pet, r.petId); } }
+    public void dispense(long id){
+        write(() -> {
+            Prescription r = rx.get(id);
+            if(r!=null){
+                synchronized (r) {
+                    boolean old = r.dispensed;
+                    r.dispensed=true; r.dispensedAt = LocalDate.now().toString();
+                    rxByDispensed.move(old, true, id, r);
+                    journal(o -> RepoCodec.rx(o, journalTerms, r));
+                }
+                log("RX_DISPENSED","Rx dispensed for " + r.pet, r.petId);
+            }
+        });
+    }
+
+    /** Prescriptions matching every given filter (null = any), in id order. */
+    public List<Prescription> rx(Long petId, Boolean dispensed){
+        Predicate<Prescription> match = r -> (petId == null || petId.equals(r.petId))
+                && (dispensed == null || dispensed == r.dispensed);
+        if (petId != null) return rxByPet.get(petId, match);
+        if (dispensed != null) return rxByDispensed.get(dispensed, match);
+        return rx();
+    }
 
     // Users
-    public List<User> users(){ return users.values().stream().sorted(Comparator.comparing(u->u.id)).toList(); }
-    public User addUser(User u){ u.id = nextUserId(); users.put(u.id,u); return u; }
-    public void removeUser(long id){ users.remove(id); }
+    public List<User> users(){ return List.copyOf(users.values()); }
+    public User addUser(User u){ return write(() -> { u.id = nextUserId(); putUser(u); return u; }); }
+    public void removeUser(long id){ write(() -> { users.remove(id); journal(o -> RepoCodec.deleted(o, RepoCodec.USER_DELETED, id)); }); }
+
+    // Restore: put records back exactly as given (ids, timestamps, no op-log entries) for reloads and fixtures
+    public void restorePet(Pet p){ pets.put(intern(p).id, p); advance(petSeq, p.id); }
+    public void restoreAppt(Appointment a){ indexAppt(intern(a)); advance(apptSeq, a.id); }
+    public void restoreRx(Prescription r){ indexRx(intern(r)); advance(rxSeq, r.id); }
+    public void restoreOp(OperationLog op){ indexOp(intern(op)); advance(opSeq, op.id); }
+    public void restoreUser(User u){ users.put(u.id, u); advance(userSeq, u.id); }
+
+    private static void advance(AtomicLong seq, long id){ seq.accumulateAndGet(id, Math::max); }
 
     // Ops & Reports
+    /** Log entries whose ts falls on a day in [from, to], oldest first; a sub-map view of the time index. */
     public List<OperationLog> opsBetween(LocalDate from, LocalDate to){
-        return ops.values().stream()
-                .filter(o->{
-                    LocalDate d = LocalDate.parse(o.ts.substring(0,10));
-                    return (!d.isBefore(from)) && (!d.isAfter(to));
-                })
-                .sorted(Comparator.comparing(o->o.id))
-                .collect(Collectors.toList());
+        if (to.isBefore(from)) return new ArrayList<>();
+        return new ArrayList<>(opsByTime.subMap(new LogKey(epochSecond(from), Long.MIN_VALUE),
+                new LogKey(epochSecond(to.plusDays(1)), Long.MIN_VALUE)).values());
+    }
+
+    public List<OperationLog> opsForPet(long petId){ return opsByPet.get(petId, o -> Objects.equals(o.petId, petId)); }
+
+    // Snapshot: the live maps, written without the write lock (see RepoStore)
+    private void writeSnapshot(RepoStore.SnapshotWriter out){
+        RepoCodec.Terms snapshotTerms = new RepoCodec.Terms(terms);
+        out.record(o -> RepoCodec.sequences(o, petSeq.get(), apptSeq.get(), rxSeq.get(), userSeq.get(), opSeq.get()));
+        for (User u : users.values()) out.record(o -> RepoCodec.user(o, u));
+        for (Pet p : pets.values()) out.record(o -> RepoCodec.pet(o, snapshotTerms, p));
+        for (Appointment a : appts.values()) out.record(o -> RepoCodec.appt(o, snapshotTerms, a));
+        for (Prescription r : rx.values()) out.record(o -> RepoCodec.rx(o, snapshotTerms, r));
+        for (OperationLog op : ops.values()) out.record(o -> RepoCodec.op(o, snapshotTerms, op));
     }
 }
@@ -0,0 +1,249 @@
+package com.pawcare.repo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal split into numbered segments (journal-000001.log, ...).
+ *
+ * Each entry is a frame: [int length][int crc32c][payload]. Appends are queued and written by a
+ * single flusher thread, which drains everything queued so far, writes it in one go and forces it
+ * to disk once (group commit); the futures handed back complete after that force.
+ *
+ * A failed write, force or roll stops the journal for good. Whatever part of the batch reached the
+ * file is truncated away, since none of it was acknowledged, and every later append fails: after a
+ * failed fsync the file's contents are unknown, so nothing more is stacked on top of them.
+ */
+class Journal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Journal.class);
+
+    static final int MAX_FRAME = 64 * 1024 * 1024;
+    private static final int MAX_BATCH = 1024;
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    private final Path dir;
+    private final boolean fsync;
+    private final SegmentOpener opener;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+
+    private FileChannel channel;
+    private volatile long segment;
+    private volatile long segmentBytes;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    private record Pending(byte[] payload, boolean roll, CompletableFuture<Long> done) {}
+
+    /** Opens a segment file for writing; tests substitute one whose writes fail. */
+    interface SegmentOpener {
+        FileChannel open(Path file) throws IOException;
+    }
+
+    static final SegmentOpener FILES = file -> FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+    /** Opens segment {@code segment} for appending at {@code position} (its last valid frame end). */
+    Journal(Path dir, long segment, long position, boolean fsync) throws IOException {
+        this(dir, segment, position, fsync, FILES);
+    }
+
+    Journal(Path dir, long segment, long position, boolean fsync, SegmentOpener opener) throws IOException {
+        this.dir = dir;
+        this.fsync = fsync;
+        this.opener = opener;
+        open(segment, position);
+        flusher = new Thread(this::flushLoop, "pawcare-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    static Path segmentPath(Path dir, long segment){ return dir.resolve(String.format("journal-%06d.log", segment)); }
+
+    long segment(){ return segment; }
+    long segmentBytes(){ return segmentBytes; }
+
+    /** Queues one entry; the future completes once it is on disk. */
+    CompletableFuture<Long> append(byte[] payload){
+        if (payload.length > MAX_FRAME) throw new IllegalArgumentException("Journal entry too large: " + payload.length + " bytes");
+        return enqueue(new Pending(payload, false, new CompletableFuture<>()));
+    }
+
+    /** Starts a new segment after everything queued so far; completes with the new segment number. */
+    CompletableFuture<Long> roll(){
+        return enqueue(new Pending(null, true, new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<Long> enqueue(Pending p){
+        checkWritable();
+        queue.add(p);
+        return p.done();
+    }
+
+    /** Throws unless appends are still accepted: not closed, and no write has failed. */
+    void checkWritable(){
+        if (closed) throw new IllegalStateException("Journal is closed");
+        Throwable e = failure;
+        if (e != null) throw new IllegalStateException("Journal of " + dir + " stopped after a failed write; restart to recover", e);
+    }
+
+    private void open(long segment, long position) throws IOException {
+        channel = opener.open(segmentPath(dir, segment));
+        channel.truncate(position);   // drop a torn tail left by a crash
+        channel.position(position);
+        this.segment = segment;
+        this.segmentBytes = position;
+    }
+
+    private void flushLoop(){
+        List<Pending> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                if (failure != null) {   // queued just before the failure
+                    for (Pending p : batch) p.done().completeExceptionally(failure);
+                    continue;
+                }
+                List<Pending> written = new ArrayList<>();
+                for (Pending p : batch) {
+                    if (p.roll()) {
+                        complete(write(written), written);
+                        written.clear();
+                        channel.close();
+                        open(segment + 1, 0);
+                        p.done().complete(segment);
+                    } else if (p.payload() != null) {
+                        written.add(p);
+                    }
+                }
+                complete(write(written), written);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                fail(e);
+                batch.forEach(p -> p.done().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private long write(List<Pending> entries) throws IOException {
+        if (entries.isEmpty()) return segmentBytes;
+        int size = 0;
+        for (Pending p : entries) size += 8 + p.payload().length;
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        for (Pending p : entries) frame(buf, p.payload());
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        if (fsync) channel.force(false);
+        segmentBytes += size;
+        return segmentBytes;
+    }
+
+    // Cuts the segment back to its last acknowledged frame, so a restart replays exactly what was acknowledged
+    private void fail(Throwable e){
+        try {
+            if (channel.isOpen()) {
+                channel.truncate(segmentBytes);
+                channel.force(false);
+            }
+        } catch (Throwable t) {
+            e.addSuppressed(t);
+        }
+        failure = e;
+        log.error("Journal segment {} failed at offset {}; no further changes are accepted", segmentPath(dir, segment), segmentBytes, e);
+    }
+
+    private static void complete(long position, List<Pending> entries){
+        for (Pending p : entries) p.done().complete(position);
+    }
+
+    static void frame(ByteBuffer buf, byte[] payload){
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        buf.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+    }
+
+    /**
+     * Memory-maps {@code file} and hands each intact frame's payload to {@code reader}, stopping at the
+     * first short, empty or corrupt frame. Returns the offset just past the last good frame.
+     */
+    static long read(Path file, Consumer<ByteBuffer> reader) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long pos = 0;
+            CRC32C crc = new CRC32C();
+            while (pos + 8 <= size) {
+                MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, size - pos));
+                int consumed = 0;
+                while (window.remaining() >= 8) {
+                    int start = window.position();
+                    int length = window.getInt();
+                    int sum = window.getInt();
+                    if (length <= 0 || length > MAX_FRAME) return pos + consumed;
+                    if (window.remaining() < length) {
+                        if (pos + start + 8 + length > size) return pos + consumed;   // torn tail
+                        window.position(start);
+                        break;                                                        // frame crosses the window
+                    }
+                    ByteBuffer payload = window.slice(window.position(), length);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != sum) return pos + consumed;
+                    reader.accept(payload);
+                    window.position(window.position() + length);
+                    consumed = window.position();
+                }
+                if (consumed == 0) break;
+                pos += consumed;
+            }
+            return pos;
+        }
+    }
+
+    /** Segment numbers present in {@code dir}, ascending. */
+    static List<Long> segments(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.map(f -> f.getFileName().toString())
+                    .filter(n -> n.matches("journal-\\d+\\.log"))
+                    .map(n -> Long.parseLong(n.substring(8, n.length() - 4)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public void close(){
+        if (closed) return;
+        closed = true;
+        queue.add(new Pending(null, false, new CompletableFuture<>()));   // wakes the flusher
+        try {
+            flusher.join();
+            if (failure == null) channel.force(false);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
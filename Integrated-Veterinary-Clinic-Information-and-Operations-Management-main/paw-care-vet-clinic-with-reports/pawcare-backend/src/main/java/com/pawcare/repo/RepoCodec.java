@@ -0,0 +1,312 @@
+package com.pawcare.repo;
+
+import com.pawcare.model.Models.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary records shared by the journal and snapshots: a tag byte followed by the fields.
+ * Records carry the full state after a change (not the operation), so replaying one twice is harmless.
+ * Strings are [int length][UTF-8], length -1 for null; nullable numbers have a presence byte.
+ * Dictionary terms (see {@link TermDictionary}) are [-2][int code][string] the first time a file uses
+ * the code, and just [-3 - code] after that; a later definition of the same code replaces the earlier one.
+ */
+final class RepoCodec {
+
+    static final byte PET = 1;
+    static final byte PET_DELETED = 2;
+    static final byte APPT_TEXT_STATUS = 3;   // status as text: still read, no longer written
+    static final byte APPT_DELETED = 4;
+    static final byte RX = 5;
+    static final byte USER = 6;
+    static final byte USER_DELETED = 7;
+    static final byte OP = 8;
+    static final byte SEQUENCES = 9;   // snapshots only: id counters, which can run ahead of the surviving ids
+    static final byte END = 10;        // snapshots only: last record
+    static final byte APPT = 11;
+
+    private static final int TERM_DEFINITION = -2;
+
+    private RepoCodec(){}
+
+    /* --------- write --------- */
+    static void pet(DataOutputStream out, Terms terms, Pet p){
+        record(terms, () -> {
+            out.writeByte(PET);
+            out.writeLong(p.id);
+            str(out, p.name); term(out, terms, p.species); term(out, terms, p.breed); str(out, p.gender);
+            nullableInt(out, p.age);
+            str(out, p.microchip); term(out, terms, p.owner); str(out, p.address); str(out, p.federation); str(out, p.photo);
+            var procedures = p.procedures == null ? null : new ArrayList<>(p.procedures);
+            out.writeInt(procedures == null ? -1 : procedures.size());
+            if (procedures != null) for (Procedure pr : procedures) {
+                str(out, pr.date); str(out, pr.procedure); str(out, pr.notes); term(out, terms, pr.vet);
+            }
+        });
+    }
+
+    static void appt(DataOutputStream out, Terms terms, Appointment a){
+        record(terms, () -> {
+            out.writeByte(APPT);
+            out.writeLong(a.id);
+            nullableLong(out, a.petId);
+            term(out, terms, a.owner); str(out, a.date); str(out, a.time); term(out, terms, a.vet);
+            out.writeByte(a.status == null ? -1 : a.status.code);
+            str(out, a.completedAt);
+        });
+    }
+
+    static void rx(DataOutputStream out, Terms terms, Prescription r){
+        record(terms, () -> {
+            out.writeByte(RX);
+            out.writeLong(r.id);
+            nullableLong(out, r.petId);
+            str(out, r.pet); term(out, terms, r.owner); term(out, terms, r.drug); str(out, r.dosage); str(out, r.directions);
+            term(out, terms, r.prescriber); str(out, r.date);
+            out.writeBoolean(r.dispensed);
+            str(out, r.dispensedAt);
+        });
+    }
+
+    static void user(DataOutputStream out, User u){
+        try {
+            out.writeByte(USER);
+            out.writeLong(u.id);
+            str(out, u.name); str(out, u.role);
+        } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    static void op(DataOutputStream out, Terms terms, OperationLog op){
+        record(terms, () -> {
+            out.writeByte(OP);
+            out.writeLong(op.id);
+            str(out, op.ts); term(out, terms, op.type); str(out, op.message);
+            nullableLong(out, op.petId);
+        });
+    }
+
+    static void deleted(DataOutputStream out, byte tag, long id){
+        try {
+            out.writeByte(tag);
+            out.writeLong(id);
+        } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    static void sequences(DataOutputStream out, long... values){
+        try {
+            out.writeByte(SEQUENCES);
+            out.writeInt(values.length);
+            for (long v : values) out.writeLong(v);
+        } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    static void end(DataOutputStream out){
+        try {
+            out.writeByte(END);
+        } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    private interface Body {
+        void write() throws IOException;
+    }
+
+    // A record that fails halfway is dropped by the caller, so the terms it defined are forgotten too
+    private static void record(Terms terms, Body body){
+        int mark = terms.mark();
+        try {
+            body.write();
+        } catch (IOException e) {
+            terms.rollback(mark);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            terms.rollback(mark);
+            throw e;
+        }
+    }
+
+    private static void term(DataOutputStream out, Terms terms, String s) throws IOException {
+        int code = terms.dictionary.code(s);
+        if (code < 0) { str(out, s); return; }
+        if (terms.defined.get(code)) { out.writeInt(-3 - code); return; }
+        out.writeInt(TERM_DEFINITION);
+        out.writeInt(code);
+        str(out, s);
+        terms.define(code);
+    }
+
+    private static void str(DataOutputStream out, String s) throws IOException {
+        if (s == null) { out.writeInt(-1); return; }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static void nullableLong(DataOutputStream out, Long v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v != null) out.writeLong(v);
+    }
+
+    private static void nullableInt(DataOutputStream out, Integer v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v != null) out.writeInt(v);
+    }
+
+    /* --------- read (the tag byte has already been consumed) --------- */
+    static Pet pet(Reader in){
+        Pet p = new Pet();
+        p.id = in.buf.getLong();
+        p.name = in.str(); p.species = in.str(); p.breed = in.str(); p.gender = in.str();
+        p.age = in.buf.get() != 0 ? in.buf.getInt() : null;
+        p.microchip = in.str(); p.owner = in.str(); p.address = in.str(); p.federation = in.str(); p.photo = in.str();
+        int n = in.buf.getInt();
+        p.procedures = n < 0 ? null : new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Procedure pr = new Procedure();
+            pr.date = in.str(); pr.procedure = in.str(); pr.notes = in.str(); pr.vet = in.str();
+            p.procedures.add(pr);
+        }
+        return p;
+    }
+
+    static Appointment appt(Reader in){
+        Appointment a = new Appointment();
+        a.id = in.buf.getLong();
+        a.petId = nullableLong(in);
+        a.owner = in.str(); a.date = in.str(); a.time = in.str(); a.vet = in.str();
+        byte status = in.buf.get();
+        a.status = status < 0 ? null : AppointmentStatus.fromCode(status);
+        a.completedAt = in.str();
+        return a;
+    }
+
+    static Appointment apptTextStatus(Reader in){
+        Appointment a = new Appointment();
+        a.id = in.buf.getLong();
+        a.petId = nullableLong(in);
+        a.owner = in.str(); a.date = in.str(); a.time = in.str(); a.vet = in.str();
+        a.status = AppointmentStatus.parse(in.str());
+        a.completedAt = in.str();
+        return a;
+    }
+
+    static Prescription rx(Reader in){
+        Prescription r = new Prescription();
+        r.id = in.buf.getLong();
+        r.petId = nullableLong(in);
+        r.pet = in.str(); r.owner = in.str(); r.drug = in.str(); r.dosage = in.str(); r.directions = in.str();
+        r.prescriber = in.str(); r.date = in.str();
+        r.dispensed = in.buf.get() != 0;
+        r.dispensedAt = in.str();
+        return r;
+    }
+
+    static User user(Reader in){
+        User u = new User();
+        u.id = in.buf.getLong();
+        u.name = in.str(); u.role = in.str();
+        return u;
+    }
+
+    static OperationLog op(Reader in){
+        OperationLog op = new OperationLog();
+        op.id = in.buf.getLong();
+        op.ts = in.str(); op.type = in.str(); op.message = in.str();
+        op.petId = nullableLong(in);
+        return op;
+    }
+
+    static long[] sequences(Reader in){
+        long[] values = new long[in.buf.getInt()];
+        for (int i = 0; i < values.length; i++) values[i] = in.buf.getLong();
+        return values;
+    }
+
+    private static Long nullableLong(Reader in){
+        return in.buf.get() != 0 ? in.buf.getLong() : null;
+    }
+
+    /**
+     * Which term codes one output stream (the journal, or one snapshot) has already spelled out.
+     * Only used by the thread writing that stream.
+     */
+    static final class Terms {
+        private final TermDictionary dictionary;
+        private final BitSet defined = new BitSet();
+        private int[] log = new int[64];   // codes defined since the last commit, for rollback
+        private int logged;
+
+        Terms(TermDictionary dictionary){ this.dictionary = dictionary; }
+
+        int mark(){ return logged; }
+
+        void rollback(int mark){
+            while (logged > mark) defined.clear(log[--logged]);
+        }
+
+        /** The records written so far are durable (or dropped as a whole); stop tracking them. */
+        void commit(){ logged = 0; }
+
+        /** The stream starts over (new journal segment, or a failed write): every term is spelled out again. */
+        void reset(){
+            defined.clear();
+            logged = 0;
+        }
+
+        private void define(int code){
+            defined.set(code);
+            if (logged == log.length) log = Arrays.copyOf(log, logged * 2);
+            log[logged++] = code;
+        }
+    }
+
+    /**
+     * Decoding state for one replay: a scratch buffer for string bytes, the term definitions seen so
+     * far, and a bounded table that makes repeated short values (dates, times) share one String instance.
+     */
+    static final class Reader {
+        private static final int MAX_SHARED_LENGTH = 32;
+        private static final int MAX_SHARED = 100_000;
+
+        ByteBuffer buf;
+        private byte[] scratch = new byte[256];
+        private final Map<String, String> shared = new HashMap<>();
+        private final ArrayList<String> terms = new ArrayList<>();
+
+        Reader on(ByteBuffer buf){ this.buf = buf; return this; }
+
+        String str(){
+            int n = buf.getInt();
+            if (n == -1) return null;
+            if (n == TERM_DEFINITION) {
+                int code = buf.getInt();
+                String s = str();
+                while (terms.size() <= code) terms.add(null);
+                terms.set(code, s);
+                return s;
+            }
+            if (n < 0) {
+                int code = -3 - n;
+                String s = code < terms.size() ? terms.get(code) : null;
+                if (s == null) throw new IllegalStateException("Store refers to undefined term " + code);
+                return s;
+            }
+            if (n > scratch.length) scratch = new byte[Math.max(n, scratch.length * 2)];
+            buf.get(scratch, 0, n);
+            String s = new String(scratch, 0, n, StandardCharsets.UTF_8);
+            if (n > MAX_SHARED_LENGTH) return s;
+            String existing = shared.get(s);
+            if (existing != null) return existing;
+            if (shared.size() < MAX_SHARED) shared.put(s, s);
+            return s;
+        }
+    }
+}
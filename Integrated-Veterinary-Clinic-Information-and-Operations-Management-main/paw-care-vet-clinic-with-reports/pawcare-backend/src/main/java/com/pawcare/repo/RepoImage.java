@@ -0,0 +1,102 @@
+package com.pawcare.repo;
+
+import com.pawcare.model.Models.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * What the store held at startup. Replay only keeps the latest record per id in plain hash maps;
+ * {@link InMemoryRepo} then bulk-builds its skip lists and indexes from the id-sorted values in
+ * linear time, instead of paying a concurrent ordered insert per record and per index.
+ */
+class RepoImage {
+
+    final Map<Long, Pet> pets = new HashMap<>();
+    final Map<Long, Appointment> appts = new HashMap<>();
+    final Map<Long, Prescription> rx = new HashMap<>();
+    final Map<Long, User> users = new HashMap<>();
+    final Map<Long, OperationLog> ops = new HashMap<>();
+    final long[] sequences = new long[5];   // pet, appt, rx, user, op
+    private final RepoCodec.Reader reader = new RepoCodec.Reader();
+
+    /** Applies every record in the buffer; returns true if it ended with {@link RepoCodec#END}. */
+    boolean apply(ByteBuffer buf){
+        RepoCodec.Reader in = reader.on(buf);
+        while (buf.hasRemaining()) {
+            byte tag = buf.get();
+            switch (tag) {
+                case RepoCodec.PET -> { Pet p = RepoCodec.pet(in); pets.put(p.id, p); }
+                case RepoCodec.PET_DELETED -> pets.remove(buf.getLong());
+                case RepoCodec.APPT -> { Appointment a = RepoCodec.appt(in); appts.put(a.id, a); }
+                case RepoCodec.APPT_TEXT_STATUS -> { Appointment a = RepoCodec.apptTextStatus(in); appts.put(a.id, a); }
+                case RepoCodec.APPT_DELETED -> appts.remove(buf.getLong());
+                case RepoCodec.RX -> { Prescription r = RepoCodec.rx(in); rx.put(r.id, r); }
+                case RepoCodec.USER -> { User u = RepoCodec.user(in); users.put(u.id, u); }
+                case RepoCodec.USER_DELETED -> users.remove(buf.getLong());
+                case RepoCodec.OP -> { OperationLog op = RepoCodec.op(in); ops.put(op.id, op); }
+                case RepoCodec.SEQUENCES -> {
+                    long[] seq = RepoCodec.sequences(in);
+                    for (int i = 0; i < Math.min(seq.length, sequences.length); i++) sequences[i] = Math.max(sequences[i], seq[i]);
+                }
+                case RepoCodec.END -> { return true; }
+                default -> throw new IllegalStateException("Unknown store record type " + tag);
+            }
+        }
+        return false;
+    }
+
+    static <V> List<V> sortedById(Map<Long, V> byId){
+        List<Map.Entry<Long, V>> entries = new ArrayList<>(byId.entrySet());
+        entries.sort(Map.Entry.comparingByKey());   // HashMap order is already close to id order for dense ids
+        List<V> out = new ArrayList<>(entries.size());
+        for (Map.Entry<Long, V> e : entries) out.add(e.getValue());
+        return out;
+    }
+
+    /** Builds a skip list from values already in ascending, distinct key order. */
+    static <T, K, V> ConcurrentSkipListMap<K, V> skipList(List<T> sorted, Function<T, K> key, Function<T, V> value){
+        return new ConcurrentSkipListMap<>(new SortedView<>(sorted, key, value));
+    }
+
+    static <V> ConcurrentSkipListMap<Long, V> byId(List<V> sorted, ToLongFunction<V> id){
+        return skipList(sorted, (V v) -> id.applyAsLong(v), Function.identity());
+    }
+
+    /**
+     * Read-only SortedMap over a sorted list, just enough for the SortedMap copy constructors
+     * (which build in one linear pass).
+     */
+    private static final class SortedView<T, K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+        private final List<T> items;
+        private final Function<T, K> key;
+        private final Function<T, V> value;
+
+        SortedView(List<T> items, Function<T, K> key, Function<T, V> value){ this.items = items; this.key = key; this.value = value; }
+
+        @Override public Comparator<? super K> comparator(){ return null; }
+        @Override public int size(){ return items.size(); }
+        @Override public K firstKey(){ return key.apply(items.get(0)); }
+        @Override public K lastKey(){ return key.apply(items.get(items.size() - 1)); }
+        @Override public SortedMap<K, V> subMap(K from, K to){ throw new UnsupportedOperationException(); }
+        @Override public SortedMap<K, V> headMap(K to){ throw new UnsupportedOperationException(); }
+        @Override public SortedMap<K, V> tailMap(K from){ throw new UnsupportedOperationException(); }
+
+        @Override
+        public Set<Entry<K, V>> entrySet(){
+            return new AbstractSet<>() {
+                @Override public int size(){ return items.size(); }
+                @Override public Iterator<Entry<K, V>> iterator(){
+                    Iterator<T> it = items.iterator();
+                    return new Iterator<>() {
+                        @Override public boolean hasNext(){ return it.hasNext(); }
+                        @Override public Entry<K, V> next(){ T t = it.next(); return new SimpleImmutableEntry<>(key.apply(t), value.apply(t)); }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.pawcare.repo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * On-disk state of an {@link InMemoryRepo}: a snapshot (snapshot-N.bin, the full state as of the start
+ * of journal segment N) plus journal segments N, N+1, ... holding every change since.
+ *
+ * Taking a snapshot rolls the journal under the repo's write lock, then writes the live maps without
+ * holding it. Records that change meanwhile are also in the new segment, and replaying a record is
+ * idempotent, so snapshot + tail always converges on the latest state.
+ */
+class RepoStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RepoStore.class);
+
+    private static final int MAGIC = 0x50415753;   // "PAWS"
+    private static final int VERSION = 1;
+    private static final int SNAPSHOT_FRAME = 1024 * 1024;
+
+    /** Writes the repo's current state, record by record. */
+    interface Snapshot {
+        void write(SnapshotWriter out);
+
+        /** Called under the write lock once the journal has moved to a new segment. */
+        void rolled();
+    }
+
+    private final Path dir;
+    private final boolean fsync;
+    private final long snapshotBytes;
+    private final Journal.SegmentOpener opener;
+    private final ExecutorService snapshots = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pawcare-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private Journal journal;
+
+    RepoStore(Path dir, boolean fsync, long snapshotBytes){
+        this(dir, fsync, snapshotBytes, Journal.FILES);
+    }
+
+    RepoStore(Path dir, boolean fsync, long snapshotBytes, Journal.SegmentOpener opener){
+        this.dir = dir;
+        this.fsync = fsync;
+        this.snapshotBytes = snapshotBytes;
+        this.opener = opener;
+    }
+
+    /** Loads the latest snapshot and replays the journal after it into {@code image}; returns false if there was nothing to load. */
+    boolean recover(RepoImage image) throws IOException {
+        Files.createDirectories(dir);
+        long started = System.nanoTime();
+
+        long snapshot = latestSnapshot();
+        if (snapshot > 0) {
+            Path file = snapshotPath(snapshot);
+            boolean[] header = {false}, end = {false};
+            Journal.read(file, frame -> {
+                if (!header[0]) {
+                    if (frame.getInt() != MAGIC || frame.getInt() != VERSION) throw new IllegalStateException("Not a snapshot: " + file);
+                    header[0] = true;
+                } else {
+                    end[0] = image.apply(frame);
+                }
+            });
+            if (!end[0]) throw new IllegalStateException("Snapshot " + file + " is incomplete");
+        }
+
+        long segment = Math.max(snapshot, 1);
+        long position = 0;
+        int entries = 0;
+        List<Long> segments = Journal.segments(dir).stream().filter(s -> s >= snapshot).toList();
+        for (int i = 0; i < segments.size(); i++) {
+            Path file = Journal.segmentPath(dir, segments.get(i));
+            int[] count = {0};
+            long end = Journal.read(file, frame -> { image.apply(frame); count[0]++; });
+            entries += count[0];
+            boolean last = i == segments.size() - 1;
+            if (!last && end != Files.size(file)) {
+                throw new IllegalStateException("Journal segment " + file + " is damaged at offset " + end);
+            }
+            if (last && end != Files.size(file)) {
+                log.warn("Dropping {} bytes of incomplete journal entries at the end of {}", Files.size(file) - end, file);
+            }
+            segment = segments.get(i);
+            position = end;
+        }
+        journal = new Journal(dir, segment, position, fsync, opener);
+
+        if (snapshot > 0 || entries > 0) {
+            log.info("Recovered store {} in {} ms (snapshot {}, {} journal entries)", dir,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), snapshot > 0 ? snapshot : "none", entries);
+            return true;
+        }
+        return false;
+    }
+
+    CompletableFuture<Long> append(byte[] entry){
+        return journal.append(entry);
+    }
+
+    /** Throws once the journal no longer accepts entries (closed, or stopped by a failed write). */
+    void checkWritable(){
+        journal.checkWritable();
+    }
+
+    /** Starts a background snapshot once the current journal segment has grown past the threshold. */
+    void maybeSnapshot(Object writeLock, Snapshot state){
+        if (journal.segmentBytes() < snapshotBytes || !snapshotting.compareAndSet(false, true)) return;
+        try {
+            snapshots.execute(() -> {
+                try {
+                    snapshot(writeLock, state);
+                } catch (Exception e) {
+                    log.error("Snapshot of {} failed; the journal still has every change", dir, e);
+                } finally {
+                    snapshotting.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            snapshotting.set(false);   // shutting down; close() takes the last one
+        }
+    }
+
+    void snapshot(Object writeLock, Snapshot state) throws IOException {
+        long started = System.nanoTime();
+        CompletableFuture<Long> rolled;
+        synchronized (writeLock) {
+            rolled = journal.roll();
+            state.rolled();
+        }
+        long segment = rolled.join();
+
+        Path tmp = dir.resolve("snapshot.tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotWriter out = new SnapshotWriter(ch);
+            out.header();
+            state.write(out);
+            out.record(RepoCodec::end);
+            out.flush();
+            ch.force(true);
+        }
+        Files.move(tmp, snapshotPath(segment), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long s : Journal.segments(dir)) if (s < segment) Files.deleteIfExists(Journal.segmentPath(dir, s));
+        try (var files = Files.list(dir)) {
+            for (Path f : files.toList()) {
+                long n = snapshotNumber(f);
+                if (n > 0 && n < segment) Files.deleteIfExists(f);
+            }
+        }
+        log.info("Wrote snapshot {} of {} in {} ms", segment, dir, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /** Waits for a running snapshot, takes a final one if the journal has a tail, and closes. */
+    void close(Object writeLock, Snapshot state){
+        snapshots.shutdown();
+        try {
+            snapshots.awaitTermination(1, TimeUnit.MINUTES);
+            if (journal.segmentBytes() > 0) snapshot(writeLock, state);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Shutdown snapshot of {} failed; the journal still has every change", dir, e);
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Override
+    public void close(){
+        snapshots.shutdownNow();
+        journal.close();
+    }
+
+    private Path snapshotPath(long segment){ return dir.resolve(String.format("snapshot-%06d.bin", segment)); }
+
+    private long latestSnapshot() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.mapToLong(RepoStore::snapshotNumber).max().orElse(0);
+        }
+    }
+
+    private static long snapshotNumber(Path file){
+        String n = file.getFileName().toString();
+        return n.matches("snapshot-\\d+\\.bin") ? Long.parseLong(n.substring(9, n.length() - 4)) : 0;
+    }
+
+    /** Buffers records into ~1 MB journal-style frames. */
+    static final class SnapshotWriter {
+        private final FileChannel channel;
+        private final Buffer bytes = new Buffer();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private SnapshotWriter(FileChannel channel){ this.channel = channel; }
+
+        private void header() throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            flush();
+        }
+
+        /** Writes one record; retried if the record was changed by another thread while being encoded. */
+        void record(Consumer<DataOutputStream> writer){
+            int mark = bytes.size();
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    writer.accept(out);
+                    break;
+                } catch (ConcurrentModificationException e) {
+                    bytes.truncate(mark);
+                    if (attempt == 10) throw e;
+                }
+            }
+            if (bytes.size() >= SNAPSHOT_FRAME) {
+                try { flush(); } catch (IOException e) { throw new UncheckedIOException(e); }
+            }
+        }
+
+        private void flush() throws IOException {
+            if (bytes.size() == 0) return;
+            byte[] payload = bytes.toByteArray();
+            bytes.reset();
+            ByteBuffer buf = ByteBuffer.allocate(8 + payload.length);
+            Journal.frame(buf, payload);
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+        void truncate(int size){ count = size; }
+    }
+}
@@ -0,0 +1,61 @@
+package com.pawcare.repo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * key -> records with that key, in id order. Entries can briefly go stale while a record is being
+ * changed, so {@link #get} re-checks the field on the way out.
+ * String keys are matched case-insensitively; null keys are not indexed.
+ */
+class SecondaryIndex<K, V> {
+
+    private final Map<Object, NavigableMap<Long, V>> entries = new ConcurrentHashMap<>();
+
+    /** Index over values sorted by id, built in one pass (startup). */
+    static <K, V> SecondaryIndex<K, V> build(List<V> sortedById, Function<V, K> key, ToLongFunction<V> id){
+        Map<Object, List<V>> groups = new HashMap<>();
+        for (V v : sortedById) {
+            K k = key.apply(v);
+            if (k != null) groups.computeIfAbsent(norm(k), x -> new ArrayList<>()).add(v);
+        }
+        SecondaryIndex<K, V> index = new SecondaryIndex<>();
+        groups.forEach((k, values) -> index.entries.put(k, RepoImage.byId(values, id)));
+        return index;
+    }
+
+    void add(K key, long id, V value){
+        if (key != null) entries.computeIfAbsent(norm(key), k -> new ConcurrentSkipListMap<>()).put(id, value);
+    }
+
+    void remove(K key, long id){
+        if (key == null) return;
+        entries.computeIfPresent(norm(key), (k, m) -> { m.remove(id); return m.isEmpty() ? null : m; });
+    }
+
+    void move(K from, K to, long id, V value){
+        add(to, id, value);
+        if (from != null && (to == null || !norm(from).equals(norm(to)))) remove(from, id);
+    }
+
+    List<V> get(K key, Predicate<V> stillMatches){
+        NavigableMap<Long, V> m = key == null ? null : entries.get(norm(key));
+        if (m == null) return List.of();
+        List<V> out = new ArrayList<>(m.size());
+        for (V v : m.values()) if (stillMatches.test(v)) out.add(v);
+        return out;
+    }
+
+    private static Object norm(Object key){
+        return key instanceof String s ? s.trim().toLowerCase(Locale.ROOT) : key;
+    }
+}
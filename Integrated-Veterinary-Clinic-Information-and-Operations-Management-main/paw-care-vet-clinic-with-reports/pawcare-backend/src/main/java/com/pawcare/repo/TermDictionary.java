@@ -0,0 +1,42 @@
+package com.pawcare.repo;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * string <-> int code for values that repeat across many records (owners, vets, prescribers, drugs,
+ * species, breeds, log types). The repo keeps one canonical String per value, so records that share
+ * it cost a reference each, and the store writes the code instead of the text (see RepoCodec).
+ *
+ * Append-only: codes are dense and never reused. Once maxSize values are known, new values are
+ * left as they are and stored as text.
+ */
+final class TermDictionary {
+
+    private record Term(String value, int code) {}
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Term> terms = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    TermDictionary(int maxSize){ this.maxSize = maxSize; }
+
+    /** The canonical instance of {@code value}, adding it if there is room. */
+    String intern(String value){
+        if (value == null) return null;
+        Term t = terms.get(value);
+        if (t == null) {
+            if (next.get() >= maxSize) return value;
+            t = terms.computeIfAbsent(value, v -> new Term(v, next.getAndIncrement()));
+        }
+        return t.value;
+    }
+
+    /** Code of a value already in the dictionary, -1 otherwise. */
+    int code(String value){
+        Term t = value == null ? null : terms.get(value);
+        return t == null ? -1 : t.code;
+    }
+
+    int size(){ return next.get(); }
+}
@@ -86,7 +86,11 @@ public class ApiControllers {
 
     /* --------- Appointments --------- */
     @GetMapping("/appointments")
-    public List<Appointment> listAppts(){ return repo.appts(); }
+    public List<Appointment> listAppts(@RequestParam(required=false) Long petId,
+                                       @RequestParam(required=false) String vet,
+                                       @RequestParam(required=false) String status){
+        return repo.appts(petId, vet, status);
+    }
 
     @PostMapping("/appointments")
     public Appointment createAppt(@RequestBody Appointment a){ return repo.addAppt(a); }
@@ -116,7 +120,10 @@ public class ApiControllers {
 
     /* --------- Prescriptions --------- */
     @GetMapping("/prescriptions")
-    public List<Prescription> listRx(){ return repo.rx(); }
+    public List<Prescription> listRx(@RequestParam(required=false) Long petId,
+                                     @RequestParam(required=false) Boolean dispensed){
+        return repo.rx(petId, dispensed);
+    }
 
     @PostMapping("/prescriptions")
     public Prescription createRx(@RequestBody Prescription r){ return repo.addRx(r); }
@@ -140,6 +147,12 @@ public class ApiControllers {
         return repo.opsBetween(f, t);
     }
 
+    @GetMapping("/pets/{id}/history")
+    public ResponseEntity<List<OperationLog>> petHistory(@PathVariable long id){
+        if (repo.pet(id).isEmpty()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(repo.opsForPet(id));
+    }
+
     @GetMapping("/reports/summary")
     public ReportSummary summary(@RequestParam String period,
                                  @RequestParam(required=false) String from,
@@ -164,8 +177,7 @@ public class ApiControllers {
         s.to = end.toString();
 
         // Appointments Done
-        s.appointmentsDone = (int) repo.appts().stream()
-                .filter(a -> "Done".equalsIgnoreCase(a.status))
+        s.appointmentsDone = (int) repo.appts(null, null, "Done").stream()
                 .filter(a -> a.completedAt != null)
                 .filter(a -> {
                     LocalDate d = LocalDate.parse(a.completedAt);
@@ -173,21 +185,21 @@ public class ApiControllers {
                 }).count();
 
         // Prescriptions Dispensed
-        s.prescriptionsDispensed = (int) repo.rx().stream()
-                .filter(r -> r.dispensed && r.dispensedAt != null)
+        s.prescriptionsDispensed = (int) repo.rx(null, true).stream()
+                .filter(r -> r.dispensedAt != null)
                 .filter(r -> {
                     LocalDate d = LocalDate.parse(r.dispensedAt);
                     return !d.isBefore(start) && !d.isAfter(end);
                 }).count();
 
+        // All events in window
+        s.events = repo.opsBetween(start, end);
+
         // Pets Added — infer from ops log
-        s.petsAdded = (int) repo.opsBetween(start, end).stream()
+        s.petsAdded = (int) s.events.stream()
                 .filter(o -> "PET_CREATED".equals(o.type))
                 .count();
 
-        // All events in window
-        s.events = repo.opsBetween(start, end);
-
         return s;
     }
 }
@@ -0,0 +1,151 @@
+package com.pawcare.repo;
+
+import com.pawcare.model.Models.Pet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// A "crash" abandons the repo without close(), so no shutdown snapshot is written and recovery
+// has to replay the journal as the process left it.
+class RepoRecoveryTest {
+
+    private static final long NO_SNAPSHOTS = Long.MAX_VALUE;
+
+    @TempDir
+    Path dir;
+
+    // Recovery reads the snapshot from the clean shutdown, then the journal written after it
+    @Test
+    void changesSurviveACrash() throws Exception {
+        InMemoryRepo repo = open(NO_SNAPSHOTS);
+        for (int i = 0; i < 50; i++) repo.addPet(pet("Pet " + i));
+        repo.close();
+
+        repo = open(NO_SNAPSHOTS);
+        repo.updatePet(repo.pets().get(3).id, pet("Renamed"));
+        repo.removePet(repo.pets().get(0).id);
+        repo.addPet(pet("Added"));
+        List<String> before = names(repo);
+
+        assertThat(names(open(NO_SNAPSHOTS))).isEqualTo(before).contains("Renamed", "Added");
+    }
+
+    @Test
+    void tornTailIsDroppedAndLaterChangesSurvive() throws Exception {
+        InMemoryRepo repo = open(NO_SNAPSHOTS);
+        repo.addPet(pet("Before"));
+        // Half a frame: a length and checksum promising more payload than was written
+        Files.write(lastSegment(), new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+
+        repo = open(NO_SNAPSHOTS);
+        assertThat(names(repo)).contains("Before");
+        repo.addPet(pet("After"));
+
+        assertThat(names(open(NO_SNAPSHOTS))).contains("Before", "After");
+    }
+
+    @Test
+    void tornWriteStopsTheRepoAndLeavesNoGarbage() throws Exception {
+        failedAppend(channel -> channel.tearWrites = true);
+    }
+
+    // The frame is complete on disk but was never acknowledged, so it must not come back either
+    @Test
+    void failedForceStopsTheRepoAndDropsTheEntry() throws Exception {
+        failedAppend(channel -> channel.failForce = true);
+    }
+
+    private void failedAppend(Consumer<FaultyChannel> fault) throws Exception {
+        FaultyChannel[] channel = new FaultyChannel[1];
+        RepoStore store = new RepoStore(dir, true, NO_SNAPSHOTS,
+                file -> channel[0] = new FaultyChannel(Journal.FILES.open(file)));
+        InMemoryRepo repo = new InMemoryRepo(store, new RepoImage());
+        repo.addPet(pet("Kept"));
+
+        fault.accept(channel[0]);
+        assertThatThrownBy(() -> repo.addPet(pet("Lost"))).isInstanceOf(CompletionException.class);
+        assertThatThrownBy(() -> repo.addPet(pet("Refused"))).isInstanceOf(IllegalStateException.class);
+        assertThat(names(repo)).doesNotContain("Refused");
+        assertThat(Journal.read(lastSegment(), frame -> {})).isEqualTo(Files.size(lastSegment()));
+
+        InMemoryRepo recovered = open(NO_SNAPSHOTS);
+        assertThat(names(recovered)).contains("Kept").doesNotContain("Lost", "Refused");
+        recovered.addPet(pet("After"));
+        assertThat(names(open(NO_SNAPSHOTS))).contains("Kept", "After").doesNotContain("Lost");
+    }
+
+    private InMemoryRepo open(long snapshotBytes) throws IOException {
+        return new InMemoryRepo(dir.toString(), true, snapshotBytes);
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Long> segments = Journal.segments(dir);
+        return Journal.segmentPath(dir, segments.get(segments.size() - 1));
+    }
+
+    private static Pet pet(String name){
+        Pet p = new Pet();
+        p.name = name;
+        p.species = "Canine";
+        p.owner = "Owner of " + name;
+        return p;
+    }
+
+    private static List<String> names(InMemoryRepo repo){
+        return repo.pets().stream().map(p -> p.name).toList();
+    }
+
+    /** Passes through to a real segment file until told to tear writes (ENOSPC halfway) or fail fsync. */
+    private static final class FaultyChannel extends FileChannel {
+        private final FileChannel file;
+        volatile boolean tearWrites;
+        volatile boolean failForce;
+
+        FaultyChannel(FileChannel file){ this.file = file; }
+
+        @Override public int write(ByteBuffer src) throws IOException {
+            if (!tearWrites) return file.write(src);
+            ByteBuffer half = src.duplicate();
+            half.limit(src.position() + src.remaining() / 2);
+            src.position(src.position() + file.write(half));
+            throw new IOException("No space left on device");
+        }
+
+        @Override public void force(boolean metaData) throws IOException {
+            if (failForce) throw new IOException("Input/output error");
+            file.force(metaData);
+        }
+
+        @Override public int read(ByteBuffer dst) throws IOException { return file.read(dst); }
+        @Override public long read(ByteBuffer[] dsts, int offset, int length) throws IOException { return file.read(dsts, offset, length); }
+        @Override public long write(ByteBuffer[] srcs, int offset, int length) throws IOException { return file.write(srcs, offset, length); }
+        @Override public long position() throws IOException { return file.position(); }
+        @Override public FileChannel position(long newPosition) throws IOException { file.position(newPosition); return this; }
+        @Override public long size() throws IOException { return file.size(); }
+        @Override public FileChannel truncate(long size) throws IOException { file.truncate(size); return this; }
+        @Override public long transferTo(long position, long count, WritableByteChannel target) throws IOException { return file.transferTo(position, count, target); }
+        @Override public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException { return file.transferFrom(src, position, count); }
+        @Override public int read(ByteBuffer dst, long position) throws IOException { return file.read(dst, position); }
+        @Override public int write(ByteBuffer src, long position) throws IOException { return file.write(src, position); }
+        @Override public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException { return file.map(mode, position, size); }
+        @Override public FileLock lock(long position, long size, boolean shared) throws IOException { return file.lock(position, size, shared); }
+        @Override public FileLock tryLock(long position, long size, boolean shared) throws IOException { return file.tryLock(position, size, shared); }
+        @Override protected void implCloseChannel() throws IOException { file.close(); }
+    }
+}
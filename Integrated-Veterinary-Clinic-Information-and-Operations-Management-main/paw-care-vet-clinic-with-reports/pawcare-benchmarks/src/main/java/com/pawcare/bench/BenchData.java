@@ -0,0 +1,135 @@
+package com.pawcare.bench;
+
+import com.pawcare.model.Models.*;
+import com.pawcare.repo.InMemoryRepo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded fixture generator. The same seed and size always give the same records; dates are spread
+ * over the year ending today, so the day/week/month report windows see realistic fractions of the data.
+ *
+ * For a size of n: n operation-log entries, n/4 appointments, n/4 prescriptions and n/10 pets.
+ */
+public final class BenchData {
+
+    public static final long DEFAULT_SEED = 20240917L;
+    public static final int DAYS = 365;
+
+    private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final String[] SPECIES = {"Canine", "Feline", "Avian", "Rabbit"};
+    private static final String[] VETS = {"Dr. Cruz", "Dr. Reyes", "Dr. Lim", "Dr. Santos"};
+    private static final String[] DRUGS = {"Amoxicillin", "Meloxicam", "Doxycycline", "Prednisone", "Metronidazole"};
+    private static final String[] OP_TYPES = {"PET_CREATED", "PET_UPDATED", "APPT_CREATED", "APPT_APPROVED",
+            "APPT_DONE", "RX_CREATED", "RX_DISPENSED"};
+
+    private final SplittableRandom random;
+    private final LocalDate today = LocalDate.now();
+
+    public BenchData(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /** A repo holding the constructor's sample rows plus a generated data set of the given size. */
+    public static InMemoryRepo repo(int size, long seed) {
+        BenchData data = new BenchData(seed);
+        InMemoryRepo repo = new InMemoryRepo();
+        long base = 1000;   // clear of the repo's own sample ids
+        int pets = Math.max(1, size / 10);
+        for (int i = 0; i < pets; i++) repo.restorePet(data.pet(base + i, data.random.nextInt(6)));
+        for (int i = 0; i < size / 4; i++) repo.restoreAppt(data.appointment(base + i, base + data.random.nextInt(pets)));
+        for (int i = 0; i < size / 4; i++) repo.restoreRx(data.prescription(base + i, base + data.random.nextInt(pets)));
+        for (int i = 0; i < size; i++) repo.restoreOp(data.operation(base + i, base + data.random.nextInt(pets)));
+        return repo;
+    }
+
+    public Pet pet(long id, int procedures) {
+        Pet p = new Pet();
+        p.id = id;
+        p.name = "Pet " + id;
+        p.species = pick(SPECIES);
+        p.breed = "Mixed";
+        p.gender = random.nextBoolean() ? "Male" : "Female";
+        p.age = random.nextInt(1, 18);
+        p.microchip = String.format("%04d-%04d", random.nextInt(10000), random.nextInt(10000));
+        p.owner = "Owner " + random.nextInt(50_000);
+        p.address = random.nextInt(1, 999) + " Mabini St.";
+        p.federation = "N/A";
+        p.procedures = new ArrayList<>(procedures);
+        for (int i = 0; i < procedures; i++) p.procedures.add(procedure());
+        return p;
+    }
+
+    public List<Pet> pets(int count, int proceduresEach) {
+        List<Pet> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) out.add(pet(i + 1, proceduresEach));
+        return out;
+    }
+
+    public Procedure procedure() {
+        Procedure pr = new Procedure();
+        pr.date = day().toString();
+        pr.procedure = random.nextBoolean() ? "Vaccination" : "Check-up";
+        pr.notes = "Routine visit, no complications observed.";
+        pr.vet = pick(VETS);
+        return pr;
+    }
+
+    public Appointment appointment(long id, long petId) {
+        Appointment a = new Appointment();
+        a.id = id;
+        a.petId = petId;
+        a.owner = "Owner " + petId;
+        LocalDate date = day();
+        a.date = date.toString();
+        a.time = String.format("%02d:%02d", random.nextInt(8, 17), random.nextBoolean() ? 0 : 30);
+        a.vet = pick(VETS);
+        int state = random.nextInt(10);
+        if (state < 5) {
+            a.status = AppointmentStatus.DONE;
+            a.completedAt = date.toString();
+        } else {
+            a.status = state < 8 ? AppointmentStatus.APPROVED : AppointmentStatus.PENDING;
+        }
+        return a;
+    }
+
+    public Prescription prescription(long id, long petId) {
+        Prescription r = new Prescription();
+        r.id = id;
+        r.petId = petId;
+        r.pet = "Pet " + petId;
+        r.owner = "Owner " + petId;
+        r.drug = pick(DRUGS);
+        r.dosage = (random.nextInt(1, 10) * 50) + " mg";
+        r.directions = "Twice daily";
+        r.prescriber = pick(VETS);
+        LocalDate date = day();
+        r.date = date.toString();
+        r.dispensed = random.nextInt(10) < 6;
+        if (r.dispensed) r.dispensedAt = date.plusDays(random.nextInt(3)).toString();
+        return r;
+    }
+
+    public OperationLog operation(long id, long petId) {
+        OperationLog op = new OperationLog();
+        op.id = id;
+        op.ts = day().atTime(random.nextInt(24), random.nextInt(60), random.nextInt(60)).format(TS);
+        op.type = pick(OP_TYPES);
+        op.message = op.type + " for Pet " + petId;
+        op.petId = petId;
+        return op;
+    }
+
+    private LocalDate day() {
+        return today.minusDays(random.nextInt(DAYS));
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,36 @@
+package com.pawcare.bench;
+
+import org.openjdk.jmh.Main;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Same command line as JMH's own Main, except that results go to
+ * target/jmh-result.json (JSON) unless -rf/-rff say otherwise, so every run leaves a file that can
+ * be compared with CompareResults:
+ *
+ *   java -jar target/benchmarks.jar                      # everything
+ *   java -jar target/benchmarks.jar ReportBenchmark -p records=100000
+ *   java -cp target/benchmarks.jar com.pawcare.bench.CompareResults old.json target/jmh-result.json
+ */
+public class BenchmarkMain {
+
+    static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-rf")) {
+            options.add("-rf");
+            options.add("json");
+        }
+        if (!options.contains("-rff")) {
+            Files.createDirectories(Path.of(DEFAULT_RESULT).getParent());
+            options.add("-rff");
+            options.add(DEFAULT_RESULT);
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
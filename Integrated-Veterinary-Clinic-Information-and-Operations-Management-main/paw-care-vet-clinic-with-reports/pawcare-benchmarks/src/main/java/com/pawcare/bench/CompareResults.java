@@ -0,0 +1,60 @@
+package com.pawcare.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Diffs two JMH JSON result files by benchmark and parameters. Prints one tab-separated line per
+ * benchmark: baseline score, current score, unit and the change in percent (positive = slower
+ * for time-per-operation modes).
+ */
+public class CompareResults {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: CompareResults <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        System.out.println("benchmark\tbaseline\tcurrent\tunit\tchange%");
+        Map<String, JsonNode> all = new TreeMap<>(baseline);
+        current.forEach(all::putIfAbsent);
+        for (String key : all.keySet()) {
+            JsonNode before = baseline.get(key);
+            JsonNode after = current.get(key);
+            String unit = (after != null ? after : before).path("primaryMetric").path("scoreUnit").asText();
+            String b = before == null ? "-" : String.format("%.3f", score(before));
+            String a = after == null ? "-" : String.format("%.3f", score(after));
+            String change = before == null || after == null || score(before) == 0 ? "-"
+                    : String.format("%+.1f", (score(after) - score(before)) * 100 / score(before));
+            System.out.println(key + "\t" + b + "\t" + a + "\t" + unit + "\t" + change);
+        }
+    }
+
+    private static double score(JsonNode run) {
+        return run.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> runs = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText().replace("com.pawcare.bench.", ""));
+            JsonNode params = run.path("params");
+            for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> p = it.next();
+                key.append(' ').append(p.getKey()).append('=').append(p.getValue().asText());
+            }
+            runs.put(key.toString(), run);
+        }
+        return runs;
+    }
+}
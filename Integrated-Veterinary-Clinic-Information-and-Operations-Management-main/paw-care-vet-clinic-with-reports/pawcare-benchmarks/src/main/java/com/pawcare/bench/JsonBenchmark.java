@@ -0,0 +1,79 @@
+package com.pawcare.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pawcare.model.Models.*;
+import com.pawcare.web.ApiControllers;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the API payloads, using an ObjectMapper configured the way Spring Boot
+ * configures the application's (Jackson2ObjectMapperBuilder defaults).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"0", "10", "100"})
+    public int procedures;
+
+    private ObjectWriter petWriter;
+    private ObjectWriter listWriter;
+    private ObjectWriter summaryWriter;
+    private ObjectReader petReader;
+
+    private Pet pet;
+    private byte[] petJson;
+    private List<Pet> page;
+    private ReportSummary monthSummary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        petWriter = mapper.writerFor(Pet.class);
+        listWriter = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Pet.class));
+        summaryWriter = mapper.writerFor(ReportSummary.class);
+        petReader = mapper.readerFor(Pet.class);
+
+        BenchData data = new BenchData(BenchData.DEFAULT_SEED);
+        pet = data.pet(1, procedures);
+        petJson = petWriter.writeValueAsBytes(pet);
+        page = data.pets(100, procedures);
+
+        String uploads = Files.createTempDirectory("pawcare-bench").toString();
+        monthSummary = new ApiControllers(BenchData.repo(100_000, BenchData.DEFAULT_SEED), uploads)
+                .summary("month", null, null);
+    }
+
+    @Benchmark
+    public byte[] writePet() throws IOException {
+        return petWriter.writeValueAsBytes(pet);
+    }
+
+    @Benchmark
+    public Pet readPet() throws IOException {
+        return petReader.readValue(petJson);
+    }
+
+    @Benchmark
+    public byte[] writePetPage() throws IOException {
+        return listWriter.writeValueAsBytes(page);
+    }
+
+    // Independent of procedures; a month of events from a 100k-record data set
+    @Benchmark
+    public byte[] writeMonthSummary() throws IOException {
+        return summaryWriter.writeValueAsBytes(monthSummary);
+    }
+}
@@ -0,0 +1,81 @@
+package com.pawcare.bench;
+
+import com.pawcare.repo.InMemoryRepo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Restart time of a journal-backed InMemoryRepo: loading a snapshot, or replaying a journal with no
+ * snapshot. The fixture is written once per trial through the normal add* methods (fsync off); each
+ * invocation recovers a fresh copy of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Xmn2g"})
+public class RecoveryBenchmark {
+
+    // Entities written; each add also writes an op-log record
+    @Param({"100000", "1000000"})
+    public int records;
+
+    @Param({"snapshot", "journal"})
+    public String from;
+
+    private Path fixture;
+    private Path work;
+    private InMemoryRepo recovered;
+
+    @Setup(Level.Trial)
+    public void writeFixture() throws IOException {
+        Path journalOnly = Files.createTempDirectory("pawcare-journal");
+        Path snapshotted = Files.createTempDirectory("pawcare-snapshot");
+        InMemoryRepo repo = new InMemoryRepo(snapshotted.toString(), false, Long.MAX_VALUE);
+        BenchData data = new BenchData(BenchData.DEFAULT_SEED);
+        int pets = Math.max(1, records / 10);
+        for (int i = 0; i < pets; i++) repo.addPet(data.pet(0, 3));
+        for (int i = 0; i < (records - pets) / 2; i++) repo.addAppt(data.appointment(0, 1 + i % pets));
+        for (int i = 0; i < (records - pets) / 2; i++) repo.addRx(data.prescription(0, 1 + i % pets));
+        copy(snapshotted, journalOnly);   // every write has been awaited, so the journal is complete
+        repo.close();                     // folds the journal into a snapshot
+        fixture = "snapshot".equals(from) ? snapshotted : journalOnly;
+    }
+
+    @Setup(Level.Invocation)
+    public void copyFixture() throws IOException {
+        work = Files.createTempDirectory("pawcare-recover");
+        copy(fixture, work);
+    }
+
+    @Benchmark
+    public InMemoryRepo recover() throws IOException {
+        recovered = new InMemoryRepo(work.toString(), false, Long.MAX_VALUE);
+        return recovered;
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeRecovered() throws IOException {
+        recovered.close();
+        delete(work);
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path f : files.toList()) Files.copy(f, to.resolve(f.getFileName()));
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path f : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(f);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.pawcare.bench;
+
+import com.pawcare.model.Models.*;
+import com.pawcare.repo.InMemoryRepo;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InMemoryRepo list, filter and range operations. Sizes above 1M need a bigger heap, e.g.
+ * java -jar target/benchmarks.jar RepoBenchmark -p records=10000000 -jvmArgsAppend -Xmx16g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepoBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int records;
+
+    private InMemoryRepo repo;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repo = BenchData.repo(records, BenchData.DEFAULT_SEED);
+        today = LocalDate.now();
+    }
+
+    @Benchmark
+    public List<Pet> listPets() {
+        return repo.pets();
+    }
+
+    @Benchmark
+    public List<Appointment> listAppointments() {
+        return repo.appts();
+    }
+
+    @Benchmark
+    public long filterDoneAppointments() {
+        return repo.appts().stream().filter(a -> a.status == AppointmentStatus.DONE).count();
+    }
+
+    @Benchmark
+    public List<Appointment> doneAppointmentsIndexed() {
+        return repo.appts(null, null, "Done");
+    }
+
+    @Benchmark
+    public List<Appointment> appointmentsForPet() {
+        return repo.appts(1000L, null, null);
+    }
+
+    @Benchmark
+    public List<OperationLog> opsBetweenDay() {
+        return repo.opsBetween(today, today);
+    }
+
+    @Benchmark
+    public List<OperationLog> opsBetweenMonth() {
+        return repo.opsBetween(today.withDayOfMonth(1), today);
+    }
+
+    @Benchmark
+    public List<OperationLog> opsBetweenYear() {
+        return repo.opsBetween(today.minusDays(BenchData.DAYS), today);
+    }
+}
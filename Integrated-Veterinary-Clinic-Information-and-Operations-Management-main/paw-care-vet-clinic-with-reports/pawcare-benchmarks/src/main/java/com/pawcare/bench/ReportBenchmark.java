@@ -0,0 +1,45 @@
+package com.pawcare.bench;
+
+import com.pawcare.model.Models.ReportSummary;
+import com.pawcare.web.ApiControllers;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/** The /api/reports/summary computation (ApiControllers.summary) over generated data. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int records;
+
+    // "custom" covers the last 90 days
+    @Param({"day", "month", "custom"})
+    public String period;
+
+    private ApiControllers controller;
+    private String from;
+    private String to;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String uploads = Files.createTempDirectory("pawcare-bench").toString();
+        controller = new ApiControllers(BenchData.repo(records, BenchData.DEFAULT_SEED), uploads);
+        LocalDate today = LocalDate.now();
+        from = today.minusDays(89).toString();
+        to = today.toString();
+    }
+
+    @Benchmark
+    public ReportSummary summary() {
+        return controller.summary(period, from, to);
+    }
+}
@@ -2,7 +2,7 @@
 window.USE_API = window.USE_API ?? false;
 window.API_BASE = window.API_BASE ?? "http://localhost:8080/api";
 
-window.ApiHttp = async function http(path, { method="GET", headers={}, body, timeoutMs=12000, token } = {}){
+window.ApiHttp = async function http(path, { method="GET", headers={}, body, timeoutMs=12000, token, withHeaders=false } = {}){
   const ctrl = new AbortController();
   const t = setTimeout(()=>ctrl.abort(), timeoutMs);
   const res = await fetch(window.API_BASE + path, {
@@ -22,13 +22,68 @@ window.ApiHttp = async function http(path, { method="GET", headers={}, body, tim
     throw new Error(`${res.status} ${res.statusText} — ${msg}`);
   }
   const text = await res.text();
-  try { return text ? JSON.parse(text) : null; } catch { return text; }
+  let data;
+  try { data = text ? JSON.parse(text) : null; } catch { data = text; }
+  return withHeaders ? { data, headers: res.headers } : data;
+};
+
+// Keyset pages: the list endpoints return one page as an array plus an opaque X-Next-Cursor header.
+window.ApiPage = async function page(path, { cursor, limit, count=false } = {}){
+  const q = new URLSearchParams();
+  if(cursor) q.set("cursor", cursor);
+  if(limit) q.set("limit", limit);
+  if(count) q.set("count", "true");
+  const sep = path.includes("?") ? "&" : "?";
+  const qs = q.toString();
+  const { data, headers } = await ApiHttp(qs ? `${path}${sep}${qs}` : path, { token: Api.token(), withHeaders: true });
+  const total = headers.get("X-Total-Count");
+  return { items: data || [], nextCursor: headers.get("X-Next-Cursor"), total: total == null ? null : Number(total) };
+};
+
+// One page at a time for the list screens: next() resolves to the next page's rows, or null when a
+// load is already running or reset() (new filter, feed reset) has superseded it.
+window.ApiPager = function pager(fetchPage, limit=50){
+  let cursor = null, done = false, generation = 0, loading = false;
+  return {
+    get done(){ return done; },
+    get generation(){ return generation; },
+    reset(){ cursor = null; done = false; loading = false; generation++; },
+    async next(){
+      if(done || loading) return null;
+      const g = generation;
+      loading = true;
+      try {
+        const p = await fetchPage({ cursor, limit });
+        if(g !== generation) return null;
+        cursor = p.nextCursor;
+        done = !cursor;
+        return p.items;
+      } finally {
+        if(g === generation) loading = false;
+      }
+    }
+  };
+};
+
+// Follows cursors until exhausted, for screens that still want the full list.
+window.ApiPageAll = async function pageAll(path, limit=500){
+  const all = [];
+  let cursor = null;
+  do {
+    const p = await ApiPage(path, { cursor, limit });
+    all.push(...p.items);
+    cursor = p.nextCursor;
+  } while(cursor);
+  return all;
 };
 
 window.Api = {
   token(){ return localStorage.getItem("jwt") || null; },
   pets: {
-    list:   () => ApiHttp("/pets",                 { token: Api.token() }),
+    list:   () => ApiPageAll("/pets"),
+    listWithProcedures: () => ApiPageAll("/pets?include=procedures"),
+    page:   (opts)=> ApiPage("/pets", opts),
+    search: (q, opts)=> ApiPage(`/pets/search?q=${encodeURIComponent(q)}`, opts),
     get:    (id)=> ApiHttp(`/pets/${id}`,          { token: Api.token() }),
     create: (p)=>  ApiHttp("/pets",                { method:"POST", body:p, token: Api.token() }),
     update: (p)=>  ApiHttp(`/pets/${p.id}`,        { method:"PUT",  body:p, token: Api.token() }),
@@ -49,9 +104,12 @@ window.Api = {
     }
   },
   appts: {
-    list:    ()    => ApiHttp("/appointments", { token: Api.token() }),
-    listForVet: (name) => ApiHttp(`/appointments?vet=${encodeURIComponent(name)}`, { token: Api.token() }),
-    listUnassigned: () => ApiHttp(`/appointments?unassigned=true`, { token: Api.token() }),
+    list:    ()    => ApiPageAll("/appointments"),
+    page:    (opts)=> ApiPage("/appointments", opts),
+    listForVet: (name) => ApiPageAll(`/appointments?vet=${encodeURIComponent(name)}`),
+    pageForVet: (name, opts) => ApiPage(`/appointments?vet=${encodeURIComponent(name)}`, opts),
+    listUnassigned: () => ApiPageAll(`/appointments?unassigned=true`),
+    pageUnassigned: (opts) => ApiPage(`/appointments?unassigned=true`, opts),
     get:     (id)  => ApiHttp(`/appointments/${id}`, { token: Api.token() }),
     create:  (a)   => ApiHttp("/appointments", { method:"POST", body:a, token: Api.token() }),
     update:  (a)   => ApiHttp(`/appointments/${a.id}`, { method:"PUT", body:a, token: Api.token() }),
@@ -60,13 +118,19 @@ window.Api = {
     remove:  (id)  => ApiHttp(`/appointments/${id}`, { method:"DELETE", token: Api.token() })
   },
   rx: {
-    list:    ()   => ApiHttp("/prescriptions", { token: Api.token() }),
+    list:    ()   => ApiPageAll("/prescriptions"),
+    page:    (opts)=> ApiPage("/prescriptions", opts),
     get:     (id) => ApiHttp(`/prescriptions/${id}`, { token: Api.token() }),
     create:  (r)  => ApiHttp("/prescriptions", { method:"POST", body:r, token: Api.token() }),
     update:  (r)  => ApiHttp(`/prescriptions/${r.id}`, { method:"PUT", body:r, token: Api.token() }),
     dispense:(id) => ApiHttp(`/prescriptions/${id}/dispense`, { method:"POST", token: Api.token() }),
     remove:  (id) => ApiHttp(`/prescriptions/${id}`, { method:"DELETE", token: Api.token() })
   },
+  // Undispensed prescriptions, oldest first
+  pharmacy: {
+    queue:    ()    => ApiPageAll("/pharmacy/queue"),
+    page:     (opts)=> ApiPage("/pharmacy/queue", opts)
+  },
   users: {
     list:   ()   => ApiHttp("/users", { token: Api.token() }),
     get:    (id) => ApiHttp(`/users/${id}`, { token: Api.token() }),
@@ -74,6 +138,24 @@ window.Api = {
     update: (u)  => ApiHttp(`/users/${u.id}`, { method:"PUT", body:u, token: Api.token() }),
     remove: (id) => ApiHttp(`/users/${id}`, { method:"DELETE", token: Api.token() })
   },
+  // Live change feed (SSE). onChange(events) gets the batch of {type,id,version} that arrived within
+  // debounceMs; a reset (events were missed) arrives as [{type:"reset"}]. EventSource reconnects by
+  // itself and resumes from the last id it saw. Returns a function that closes the stream.
+  events: (onChange, { types, debounceMs=300 } = {}) => {
+    const es = new EventSource(`${window.API_BASE}/events`);
+    let batch = [], timer = null;
+    const queue = (ev) => {
+      batch.push(ev);
+      if(!timer) timer = setTimeout(()=>{ const b = batch; batch = []; timer = null; onChange(b); }, debounceMs);
+    };
+    es.onmessage = (m) => {
+      let ev;
+      try { ev = JSON.parse(m.data); } catch { return; }
+      if(!types || types.some(t => ev.type.startsWith(t))) queue(ev);
+    };
+    es.addEventListener("reset", () => queue({ type: "reset" }));
+    return () => { clearTimeout(timer); es.close(); };
+  },
   reports: {
     summary: (period, from, to) => {
       const q = new URLSearchParams({ period, ...(from?{from}:{}) , ...(to?{to}:{}) }).toString();
@@ -82,6 +164,11 @@ window.Api = {
     log: (from, to) => {
       const q = new URLSearchParams({ from, to }).toString();
       return ApiHttp(`/ops/log?${q}`, { token: Api.token() });
+    },
+    // Streaming download (NDJSON or CSV); resume with afterId = last id received
+    exportUrl: (from, to, { format="ndjson", type, petId, afterId } = {}) => {
+      const q = new URLSearchParams({ from, to, format, ...(type?{type}:{}), ...(petId?{petId}:{}), ...(afterId?{afterId}:{}) }).toString();
+      return `${window.API_BASE}/ops/log/export?${q}`;
     }
   }
 };
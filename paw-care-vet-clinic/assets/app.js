@@ -246,6 +246,59 @@ window.ownerForPet = async function(id) {
   return "Unknown Owner";
 };
 
+// Same page shape as ApiPage, over a list already in memory (the localStorage mode)
+window.arrayPage = function(items, { cursor, limit }) {
+  const start = Number(cursor || 0), end = start + limit;
+  return { items: items.slice(start, end), nextCursor: end < items.length ? String(end) : null };
+};
+
+// List screens load one page at a time: the "Load more" button under a table fetches the next page,
+// and scrolling it into view does the same. Hide the button once the list is complete.
+window.attachLoadMore = function(button, load) {
+  button.addEventListener('click', () => load());
+  if ('IntersectionObserver' in window) {
+    new IntersectionObserver(entries => { if (entries.some(e => e.isIntersecting)) load(); }).observe(button);
+  }
+};
+
+// Returns apply(events), which applies change-feed events ({type,id,version}) to a paged table whose
+// rows carry data-id, without reloading it: each named row is fetched once, then redrawn in place,
+// moved, or removed when it is gone or no longer shown here. A row that is not on screen yet is
+// inserted in id order if it falls within the pages already loaded; otherwise a later page brings it.
+// A reset, or an event that names no row (bulk imports), reloads the list. Calls run one after
+// another, so an older fetch never overwrites a newer one.
+//   root      element holding the table bodies
+//   get(id)   resolves to the row's data, or null when it no longer exists
+//   bodyFor   the tbody a row belongs in, or null when this view does not show it
+//   rowHtml   markup for one row
+window.rowPatcher = function(opts) {
+  let last = Promise.resolve();
+  return (events) => (last = last.catch(() => {}).then(() => applyRowChanges(events, opts)));
+};
+
+async function applyRowChanges(events, { root, get, bodyFor, rowHtml, allLoaded, reload }) {
+  if (events.some(e => e.type === 'reset' || e.id == null)) return reload();
+  const ids = [...new Set(events.map(e => e.id))];
+  const items = await Promise.all(ids.map(id => get(id).catch(err => {
+    if (String(err.message).startsWith('404')) return null;
+    throw err;
+  })));
+  ids.forEach((id, i) => {
+    const item = items[i];
+    const old = root.querySelector(`tr[data-id="${id}"]`);
+    const body = item ? bodyFor(item) : null;
+    if (old && old.parentElement === body) { old.outerHTML = rowHtml(item); return; }
+    old?.remove();
+    if (!body) return;
+    const next = [...body.querySelectorAll('tr[data-id]')].find(r => Number(r.dataset.id) > id);
+    const loaded = old || allLoaded() || [...root.querySelectorAll('tr[data-id]')].some(r => Number(r.dataset.id) > id);
+    if (!loaded) return;
+    body.querySelector('[data-empty]')?.remove();
+    if (next) next.insertAdjacentHTML('beforebegin', rowHtml(item));
+    else body.insertAdjacentHTML('beforeend', rowHtml(item));
+  });
+}
+
 /* ===== Local Storage Repository Functions ===== */
 // These functions provide local storage functionality when USE_API is false
 
@@ -457,6 +510,16 @@ window.repoListRx = async function() {
   return data ? JSON.parse(data) : [];
 };
 
+// Pharmacist work queue: prescriptions still to dispense, oldest first
+window.repoPharmacyQueue = async function() {
+  if (window.USE_API) {
+    return await Api.pharmacy.queue();
+  }
+  const rx = await repoListRx();
+  return rx.filter(r => !r.dispensed)
+    .sort((a, b) => (a.date || '').localeCompare(b.date || '') || a.id - b.id);
+};
+
 window.repoGetRx = async function(id) {
   if (window.USE_API) {
     return await Api.rx.get(id);
@@ -634,7 +697,8 @@ window.repoSummary = async function(period, from, to) {
   
   const appointments = await repoListAppts();
   const prescriptions = await repoListRx();
-  const pets = await repoListPets();
+  // The API's default pet list only carries procedureCount; the cost report needs the procedures themselves
+  const pets = window.USE_API ? await Api.pets.listWithProcedures() : await repoListPets();
   const owners = await repoListOwners();
   
   // Count appointments done
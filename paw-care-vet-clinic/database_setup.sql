@@ -4,6 +4,12 @@ USE pawcare_db;
 
 -- Create tables (these will be created automatically by Hibernate, but this is for reference)
 
+-- Pooled id generators for pets, appointments and prescriptions (lets inserts be batched)
+CREATE TABLE IF NOT EXISTS id_generators (
+    entity VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_id BIGINT
+);
+
 -- Pets table
 CREATE TABLE IF NOT EXISTS pets (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -16,7 +22,8 @@ CREATE TABLE IF NOT EXISTS pets (
     owner VARCHAR(255),
     address TEXT,
     federation VARCHAR(50),
-    photo VARCHAR(500)
+    photo VARCHAR(500),
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Procedures table
@@ -38,9 +45,15 @@ CREATE TABLE IF NOT EXISTS appointments (
     date DATE,
     time VARCHAR(10),
     vet VARCHAR(255),
+    vet_key VARCHAR(255),
     status VARCHAR(50),
+    status_code TINYINT,
     completed_at DATE,
-    FOREIGN KEY (pet_id) REFERENCES pets(id) ON DELETE CASCADE
+    version BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (pet_id) REFERENCES pets(id) ON DELETE CASCADE,
+    INDEX idx_appt_vet_key_date (vet_key, date),
+    INDEX idx_appt_status_code_date (status_code, date),
+    INDEX idx_appt_completed_at (completed_at)
 );
 
 -- Prescriptions table
@@ -56,7 +69,10 @@ CREATE TABLE IF NOT EXISTS prescriptions (
     date DATE,
     dispensed BOOLEAN DEFAULT FALSE,
     dispensed_at DATE,
-    FOREIGN KEY (pet_id) REFERENCES pets(id) ON DELETE CASCADE
+    version BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (pet_id) REFERENCES pets(id) ON DELETE CASCADE,
+    INDEX idx_rx_dispensed_at (dispensed_at),
+    INDEX idx_rx_queue (dispensed, date, id)
 );
 
 -- Users table
@@ -73,7 +89,17 @@ CREATE TABLE IF NOT EXISTS operation_logs (
     operation_type VARCHAR(100),
     message TEXT,
     pet_id BIGINT,
-    FOREIGN KEY (pet_id) REFERENCES pets(id) ON DELETE SET NULL
+    INDEX idx_oplog_ts (timestamp),
+    INDEX idx_oplog_type_ts (operation_type, timestamp)
+);
+
+-- Daily report rollup: one row per day per counter (PET_CREATED, APPT_DONE, RX_DISPENSED)
+CREATE TABLE IF NOT EXISTS daily_stats (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    stat_date DATE NOT NULL,
+    counter VARCHAR(50) NOT NULL,
+    total BIGINT NOT NULL,
+    UNIQUE KEY uk_daily_stats_date_counter (stat_date, counter)
 );
 
 -- Insert sample data
@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator for comparing the platform-thread and virtual-thread request modes.
+ *
+ * Each of --concurrency clients loops over a fixed mix: mostly fast reads (pet page, cached pet,
+ * free slots) with a slice of slow month-end work (report summary, ops-log export). Per-endpoint
+ * throughput, p50/p99 and errors are printed and appended to --out as CSV under --label, so runs
+ * against both modes land in one file.
+ *
+ *   java loadtest/LoadTest.java --base http://localhost:8080 --label platform --concurrency 400 --duration 60
+ *
+ * Needs only a JDK 16+ (it uses records); it is not part of the Maven build.
+ */
+public class LoadTest {
+
+    record Endpoint(String name, String path, int weight) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        String base = opt.getOrDefault("base", "http://localhost:8080");
+        String label = opt.getOrDefault("label", "run");
+        int concurrency = Integer.parseInt(opt.getOrDefault("concurrency", "200"));
+        int duration = Integer.parseInt(opt.getOrDefault("duration", "60"));
+        int warmup = Integer.parseInt(opt.getOrDefault("warmup", "10"));
+        Path out = Path.of(opt.getOrDefault("out", "loadtest-results.csv"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        String petId = opt.containsKey("pet-id") ? opt.get("pet-id") : firstPetId(client, base);
+
+        String today = LocalDate.now().toString();
+        String monthStart = LocalDate.now().withDayOfMonth(1).toString();
+        List<Endpoint> mix = List.of(
+                new Endpoint("pets-page", "/api/pets?limit=50", 30),
+                new Endpoint("pet", "/api/pets/" + petId, 30),
+                new Endpoint("free-slots", "/api/vets/" + opt.getOrDefault("vet", "dr.%20cruz") + "/free-slots?date=" + today, 25),
+                new Endpoint("report-month", "/api/reports/summary?period=month", 10),
+                new Endpoint("ops-export", "/api/ops/log/export?from=" + monthStart + "&to=" + today, 5));
+        int totalWeight = mix.stream().mapToInt(Endpoint::weight).sum();
+
+        Recorder[] recorders = new Recorder[mix.size()];
+        for (int i = 0; i < recorders.length; i++) recorders[i] = new Recorder();
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(duration);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        for (int c = 0; c < concurrency; c++) {
+            clients.submit(() -> {
+                while (System.nanoTime() < end) {
+                    int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+                    int idx = 0;
+                    while (pick >= mix.get(idx).weight()) pick -= mix.get(idx++).weight();
+                    HttpRequest req = HttpRequest.newBuilder(URI.create(base + mix.get(idx).path()))
+                            .timeout(Duration.ofSeconds(60)).GET().build();
+                    long t0 = System.nanoTime();
+                    boolean ok;
+                    try {
+                        HttpResponse<InputStream> res = client.send(req, HttpResponse.BodyHandlers.ofInputStream());
+                        try (InputStream body = res.body()) {
+                            body.transferTo(OutputSink.INSTANCE);
+                        }
+                        ok = res.statusCode() < 400;
+                    } catch (IOException e) {
+                        ok = false;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long t1 = System.nanoTime();
+                    if (t0 >= warmupEnd) recorders[idx].record(t1 - t0, ok);
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(warmup + duration + 120L, TimeUnit.SECONDS);
+
+        boolean header = !Files.exists(out);
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (header) w.println("label,concurrency,endpoint,requests,errors,rps,p50_ms,p99_ms,max_ms");
+            System.out.printf("%-14s %9s %7s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+            Recorder all = new Recorder();
+            for (int i = 0; i < mix.size(); i++) {
+                Recorder r = recorders[i];
+                all.merge(r);
+                row(w, label, concurrency, mix.get(i).name(), r, duration);
+            }
+            row(w, label, concurrency, "ALL", all, duration);
+        }
+        System.out.println("Appended to " + out.toAbsolutePath());
+        System.exit(0);
+    }
+
+    private static void row(PrintWriter w, String label, int concurrency, String name, Recorder r, int duration) {
+        double rps = r.count / (double) duration;
+        System.out.printf("%-14s %9d %7d %9.1f %9.1f %9.1f %9.1f%n", name, r.count, r.errors, rps,
+                r.percentile(0.50), r.percentile(0.99), r.percentile(1.0));
+        w.printf("%s,%d,%s,%d,%d,%.1f,%.2f,%.2f,%.2f%n", label, concurrency, name, r.count, r.errors, rps,
+                r.percentile(0.50), r.percentile(0.99), r.percentile(1.0));
+    }
+
+    // Any existing pet will do for the single-record endpoint
+    private static String firstPetId(HttpClient client, String base) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(base + "/api/pets?limit=1")).GET().build();
+        Matcher m = Pattern.compile("\"id\"\\s*:\\s*(\\d+)").matcher(client.send(req, HttpResponse.BodyHandlers.ofString()).body());
+        if (!m.find()) throw new IllegalStateException("No pets at " + base + "; seed some data or pass --pet-id");
+        return m.group(1);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opt = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+            opt.put(args[i].substring(2), args[i + 1]);
+        }
+        return opt;
+    }
+
+    /** Latencies of one endpoint; appended under a lock, sorted once at the end. */
+    static final class Recorder {
+        private long[] nanos = new long[1024];
+        int count;
+        int errors;
+
+        synchronized void record(long latency, boolean ok) {
+            if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+            nanos[count++] = latency;
+            if (!ok) errors++;
+        }
+
+        synchronized void merge(Recorder other) {
+            for (int i = 0; i < other.count; i++) record(other.nanos[i], true);
+            errors += other.errors;
+        }
+
+        synchronized double percentile(double p) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            int idx = (int) Math.min(count - 1, Math.ceil(p * count) - 1);
+            return sorted[Math.max(idx, 0)] / 1_000_000.0;
+        }
+    }
+
+    /** Discards response bodies; the export endpoint can stream megabytes. */
+    static final class OutputSink extends java.io.OutputStream {
+        static final OutputSink INSTANCE = new OutputSink();
+        @Override public void write(int b) {}
+        @Override public void write(byte[] b, int off, int len) {}
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bytes on the wire and server CPU per request for the list endpoints, once per Accept-Encoding.
+ *
+ * Requests are sent one at a time, so the server's CPU time over a run divided by the request
+ * count is the cost of one response. CPU comes from process_cpu_seconds_total on /api/ops/metrics;
+ * against a build without that metric, pass the server's --pid to read /proc/{pid}/stat instead
+ * (Linux, same host). Bodies are counted as received, before any decompression.
+ *
+ *   java loadtest/PayloadBench.java --base http://localhost:8080 --label after --requests 300
+ *
+ * Results are appended to --out as CSV under --label, so before/after runs land in one file.
+ * Needs only a JDK 16+ (it uses records); it is not part of the Maven build.
+ */
+public class PayloadBench {
+
+    record Endpoint(String name, String path) {}
+
+    private static final Pattern CPU = Pattern.compile("(?m)^process_cpu_seconds_total\\s+(\\S+)");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        String base = opt.getOrDefault("base", "http://localhost:8080");
+        String label = opt.getOrDefault("label", "run");
+        int requests = Integer.parseInt(opt.getOrDefault("requests", "300"));
+        int warmup = Integer.parseInt(opt.getOrDefault("warmup", "100"));
+        String pid = opt.get("pid");
+        List<String> encodings = List.of(opt.getOrDefault("encodings", "identity,gzip,br").split(","));
+        Path out = Path.of(opt.getOrDefault("out", "payload-results.csv"));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<Endpoint> endpoints = List.of(
+                new Endpoint("appts-500", "/api/appointments?limit=500"),
+                new Endpoint("rx-500", "/api/prescriptions?limit=500"),
+                new Endpoint("pets-500", "/api/pets?limit=500"),
+                new Endpoint("pets-procs-100", "/api/pets?include=procedures&limit=100"),
+                new Endpoint("appt-1", "/api/appointments?limit=1"));
+
+        // Warm every endpoint first, so the JIT has settled before the first measured run
+        for (Endpoint e : endpoints) {
+            for (String enc : encodings) {
+                for (int i = 0; i < warmup; i++) fetch(client, base + e.path(), enc);
+            }
+        }
+
+        boolean header = !Files.exists(out);
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (header) w.println("label,endpoint,accept_encoding,content_encoding,requests,wire_bytes,cpu_ms_per_req,mean_ms");
+            System.out.printf("%-15s %-9s %-9s %11s %12s %9s%n", "endpoint", "accept", "got", "wire bytes", "cpu ms/req", "mean ms");
+            for (Endpoint e : endpoints) {
+                for (String enc : encodings) {
+                    double cpu0 = serverCpu(client, base, pid);
+                    long t0 = System.nanoTime();
+                    Fetch last = null;
+                    for (int i = 0; i < requests; i++) last = fetch(client, base + e.path(), enc);
+                    long elapsed = System.nanoTime() - t0;
+                    double cpu1 = serverCpu(client, base, pid);
+                    double cpuMs = (cpu1 - cpu0) * 1000 / requests;
+                    double meanMs = elapsed / 1e6 / requests;
+                    System.out.printf("%-15s %-9s %-9s %11d %12.3f %9.3f%n", e.name(), enc, last.encoding(), last.bytes(), cpuMs, meanMs);
+                    w.printf("%s,%s,%s,%s,%d,%d,%.4f,%.4f%n", label, e.name(), enc, last.encoding(), requests, last.bytes(), cpuMs, meanMs);
+                }
+            }
+        }
+        System.out.println("Appended to " + out.toAbsolutePath());
+    }
+
+    record Fetch(long bytes, String encoding) {}
+
+    private static Fetch fetch(HttpClient client, String url, String encoding) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).header("Accept-Encoding", encoding)
+                .timeout(Duration.ofSeconds(30)).GET().build();
+        HttpResponse<InputStream> res = client.send(req, HttpResponse.BodyHandlers.ofInputStream());
+        long bytes = 0;
+        try (InputStream body = res.body()) {
+            byte[] buf = new byte[16384];
+            for (int n; (n = body.read(buf)) > 0; ) bytes += n;
+        }
+        if (res.statusCode() >= 400) throw new IllegalStateException(url + " returned " + res.statusCode());
+        return new Fetch(bytes, res.headers().firstValue("Content-Encoding").orElse("identity"));
+    }
+
+    // Server process CPU seconds (user + system)
+    private static double serverCpu(HttpClient client, String base, String pid) throws IOException, InterruptedException {
+        if (pid != null) {
+            // Fields after the ")" of the command name: utime is the 12th, stime the 13th, in clock ticks
+            String stat = Files.readString(Path.of("/proc", pid, "stat"));
+            String[] f = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            return (Long.parseLong(f[11]) + Long.parseLong(f[12])) / 100.0;
+        }
+        HttpRequest req = HttpRequest.newBuilder(URI.create(base + "/api/ops/metrics")).GET().build();
+        Matcher m = CPU.matcher(client.send(req, HttpResponse.BodyHandlers.ofString()).body());
+        if (!m.find()) throw new IllegalStateException("No process_cpu_seconds_total at " + base + "; pass --pid");
+        return Double.parseDouble(m.group(1));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opt = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+            opt.put(args[i].substring(2), args[i + 1]);
+        }
+        return opt;
+    }
+}
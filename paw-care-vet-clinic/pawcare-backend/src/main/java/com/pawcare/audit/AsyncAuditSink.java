@@ -0,0 +1,177 @@
+package com.pawcare.audit;
+
+import com.pawcare.entity.OperationLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues entries in a bounded buffer and lets one background thread write them
+ * with multi-row INSERTs. Entries are enqueued only after the surrounding
+ * transaction commits, so rolled-back mutations leave no trace. When the queue
+ * is full, callers block until the writer catches up.
+ */
+@Component
+@ConditionalOnProperty(name = "pawcare.audit.mode", havingValue = "async", matchIfMissing = true)
+public class AsyncAuditSink implements AuditSink {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAuditSink.class);
+    private static final String INSERT_PREFIX =
+            "INSERT INTO operation_logs (timestamp, operation_type, message, pet_id) VALUES ";
+    private static final String ROW = "(?,?,?,?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<OperationLog> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Thread writer;
+    private final Object writeLock = new Object();
+    private final AtomicLong enqueued = new AtomicLong();
+    private long settled; // entries written or dropped, guarded by writeLock
+    private volatile boolean running = true;
+
+    public AsyncAuditSink(JdbcTemplate jdbcTemplate,
+                          @Value("${pawcare.audit.queue-capacity:10000}") int queueCapacity,
+                          @Value("${pawcare.audit.batch-size:500}") int batchSize,
+                          @Value("${pawcare.audit.flush-interval-ms:200}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = flushIntervalMs;
+        this.writer = new Thread(this::drainLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void record(OperationLog log) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { enqueue(log); }
+            });
+        } else {
+            enqueue(log);
+        }
+    }
+
+    @Override
+    public void flush() {
+        long target = enqueued.get();
+        List<OperationLog> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        // The writer may still hold a batch it took off the queue before the drain
+        synchronized (writeLock) {
+            while (settled < target) {
+                try {
+                    writeLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int pending() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        flush();
+    }
+
+    private void enqueue(OperationLog log) {
+        enqueued.incrementAndGet();
+        try {
+            queue.put(log);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while queueing audit entry {}; writing it inline", log.getType());
+            write(List.of(log));
+        }
+    }
+
+    private void drainLoop() {
+        List<OperationLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                OperationLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } catch (RuntimeException e) {
+                LOG.error("Audit writer failed to persist {} entries", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<OperationLog> batch) {
+        if (batch.isEmpty()) return;
+        synchronized (writeLock) {
+            try {
+                insert(batch);
+            } catch (RuntimeException e) {
+                // One bad row must not cost the whole batch
+                LOG.warn("Batched audit insert failed, retrying {} rows individually", batch.size(), e);
+                for (OperationLog log : batch) {
+                    try {
+                        insert(List.of(log));
+                    } catch (RuntimeException rowError) {
+                        LOG.error("Dropping audit entry {} '{}'", log.getType(), log.getMessage(), rowError);
+                    }
+                }
+            } finally {
+                settled += batch.size();
+                writeLock.notifyAll();
+            }
+        }
+    }
+
+    private void insert(List<OperationLog> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows.size() * (ROW.length() + 1))
+                .append(INSERT_PREFIX);
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) sql.append(',');
+            sql.append(ROW);
+        }
+        jdbcTemplate.update(sql.toString(), ps -> {
+            int i = 1;
+            for (OperationLog log : rows) {
+                ps.setTimestamp(i++, log.getTs() == null ? null : Timestamp.valueOf(log.getTs()));
+                ps.setString(i++, log.getType());
+                ps.setString(i++, log.getMessage());
+                if (log.getPetId() == null) ps.setNull(i++, Types.BIGINT);
+                else ps.setLong(i++, log.getPetId());
+            }
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.pawcare.audit;
+
+import com.pawcare.entity.OperationLog;
+
+/**
+ * Destination for operation-log entries emitted by PawCareService.
+ * Selected with pawcare.audit.mode: "async" (default) or "sync".
+ */
+public interface AuditSink {
+
+    void record(OperationLog log);
+
+    /** Writes out anything still buffered. */
+    default void flush() {}
+
+    /** Entries accepted but not yet written. */
+    default int pending() { return 0; }
+}
@@ -0,0 +1,26 @@
+package com.pawcare.audit;
+
+import com.pawcare.entity.OperationLog;
+import com.pawcare.repository.OperationLogRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes each entry inside the caller's transaction. Useful for tests and
+ * tooling that read the log back immediately after a mutation.
+ */
+@Component
+@ConditionalOnProperty(name = "pawcare.audit.mode", havingValue = "sync")
+public class SyncAuditSink implements AuditSink {
+
+    private final OperationLogRepository operationLogRepository;
+
+    public SyncAuditSink(OperationLogRepository operationLogRepository) {
+        this.operationLogRepository = operationLogRepository;
+    }
+
+    @Override
+    public void record(OperationLog log) {
+        operationLogRepository.save(log);
+    }
+}
@@ -0,0 +1,45 @@
+package com.pawcare.cache;
+
+import com.pawcare.entity.Pet;
+import com.pawcare.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableScheduling
+public class CacheConfig {
+
+    @Bean
+    public EntityCache<Pet> petCache(@Value("${pawcare.cache.pets.max-size:10000}") int maxSize,
+                                     @Value("${pawcare.cache.pets.ttl:PT10M}") Duration ttl) {
+        return new EntityCache<>("pets", maxSize, ttl);
+    }
+
+    @Bean
+    public EntityCache<User> userCache(@Value("${pawcare.cache.users.max-size:1000}") int maxSize,
+                                       @Value("${pawcare.cache.users.ttl:PT10M}") Duration ttl) {
+        return new EntityCache<>("users", maxSize, ttl);
+    }
+
+    @Bean
+    public CachePurger cachePurger(List<EntityCache<?>> caches) {
+        return new CachePurger(caches);
+    }
+
+    public static class CachePurger {
+        private final List<EntityCache<?>> caches;
+
+        CachePurger(List<EntityCache<?>> caches) { this.caches = caches; }
+
+        @Scheduled(fixedDelayString = "${pawcare.cache.purge-interval-ms:60000}")
+        public void purge() {
+            caches.forEach(EntityCache::purgeExpired);
+        }
+    }
+}
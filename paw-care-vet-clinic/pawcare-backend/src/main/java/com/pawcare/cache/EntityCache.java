@@ -0,0 +1,133 @@
+package com.pawcare.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small read-through cache keyed by entity id. Entries are evicted least-recently-used
+ * once maxSize is reached, and expire ttl after they were loaded. Misses are not cached,
+ * so a row created later is picked up on the next read. Invalidation is the caller's job
+ * (PawCareService evicts on every mutation). A load that overlaps an invalidation of its id
+ * is returned to its caller but not cached, since it may have read the row before the write.
+ */
+public class EntityCache<V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Long, Entry<V>> entries;
+    // Loads in flight, by id; guarded by entries. Only ids being loaded have a generation.
+    private final Map<Long, Load> loads = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    // Bumped by invalidate(); a load that finds a different generation when it finishes is stale
+    private static final class Load {
+        long generation;
+        int loaders;
+    }
+
+    public EntityCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<V>> eldest) {
+                if (size() <= EntityCache.this.maxSize) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public Optional<V> get(Long id, Function<Long, Optional<V>> loader) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> e = entries.get(id);
+            if (e != null) {
+                if (e.expiresAt - now > 0) {
+                    hits.increment();
+                    return Optional.of(e.value);
+                }
+                entries.remove(id);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        Load load;
+        long generation;
+        synchronized (entries) {
+            load = loads.computeIfAbsent(id, k -> new Load());
+            load.loaders++;
+            generation = load.generation;
+        }
+        // Loaded outside the lock; two concurrent misses may both hit the database, which is harmless
+        Optional<V> loaded = Optional.empty();
+        try {
+            loaded = loader.apply(id);
+        } finally {
+            synchronized (entries) {
+                if (loaded.isPresent() && load.generation == generation) {
+                    entries.put(id, new Entry<>(loaded.get(), System.nanoTime() + ttlNanos));
+                }
+                if (--load.loaders == 0) loads.remove(id);
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        synchronized (entries) {
+            entries.remove(id);
+            Load load = loads.get(id);
+            if (load != null) load.generation++;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            loads.values().forEach(load -> load.generation++);
+        }
+    }
+
+    /** Drops expired entries; called periodically so idle entries do not linger until touched. */
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Iterator<Entry<V>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiresAt - now <= 0) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public Map<String, Long> stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return Map.of(
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "evictions", evictions.sum(),
+                "size", (long) size,
+                "maxSize", (long) maxSize);
+    }
+
+    public String getName() { return name; }
+}
@@ -2,11 +2,18 @@ package com.pawcare.config;
 
 import com.pawcare.entity.*;
 import com.pawcare.repository.*;
+import com.pawcare.service.PawCareService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -23,12 +30,74 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PawCareService pawCareService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Override
     public void run(String... args) throws Exception {
+        // Ids now come from pooled table generators; start them past rows written under AUTO_INCREMENT
+        alignIdGenerator("pets");
+        alignIdGenerator("appointments");
+        alignIdGenerator("prescriptions");
+
+        // Audit rows are written after commit and outlive their pets; older schemas still link them
+        dropOperationLogPetForeignKey();
+
+        // Normalized vet keys for appointments created before vet_key existed
+        appointmentRepository.backfillVetKeys();
+
+        // One-byte status codes for appointments created before status_code existed
+        appointmentRepository.backfillStatusCodes();
+
+        // Regenerate the report rollup if it was lost or predates daily_stats
+        if (pawCareService.dailyStatsMissing()) {
+            pawCareService.rebuildDailyStats();
+        }
+
         // Only initialize if database is empty
         if (petRepository.count() == 0) {
             initializeData();
         }
+
+        // Booked slots per vet and day, used for conflict checks and free-slot queries
+        pawCareService.rebuildSchedule();
+
+        // Prefix index behind /api/pets/search; kept current by the service from here on
+        pawCareService.rebuildPetSearch();
+    }
+
+    // The pooled optimizer hands out the block ending at the stored value, so it must sit at least
+    // one allocation above the highest existing id. Never moves a generator backwards.
+    private void alignIdGenerator(String table) {
+        jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", " + IdGenerators.VALUE_COLUMN + ")" +
+                " SELECT ?, 0 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM " + IdGenerators.TABLE +
+                " WHERE " + IdGenerators.NAME_COLUMN + " = ?)", table, table);
+        jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = GREATEST(" +
+                IdGenerators.VALUE_COLUMN + ", (SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + IdGenerators.ALLOCATION_SIZE + ")" +
+                " WHERE " + IdGenerators.NAME_COLUMN + " = ?", table);
+    }
+
+    // Schemas created by earlier versions of database_setup.sql carry an unnamed FK from
+    // operation_logs.pet_id to pets, which rejects a PET_DELETED entry that lands after the delete.
+    private void dropOperationLogPetForeignKey() {
+        List<String> names = jdbcTemplate.execute((ConnectionCallback<List<String>>) con -> {
+            List<String> found = new ArrayList<>();
+            DatabaseMetaData meta = con.getMetaData();
+            try (ResultSet rs = meta.getImportedKeys(con.getCatalog(), con.getSchema(), "operation_logs")) {
+                while (rs.next()) {
+                    if ("pet_id".equalsIgnoreCase(rs.getString("FKCOLUMN_NAME"))) {
+                        found.add(rs.getString("FK_NAME"));
+                    }
+                }
+            }
+            return found;
+        });
+        for (String name : names) {
+            jdbcTemplate.execute("ALTER TABLE operation_logs DROP FOREIGN KEY `" + name + "`");
+        }
     }
 
     private void initializeData() {
@@ -40,7 +109,7 @@ public class DataInitializer implements CommandLineRunner {
         pet2 = petRepository.save(pet2);
 
         // Create sample appointments
-        Appointment appointment1 = new Appointment(pet1.getId(), pet1.getOwner(), LocalDate.now().plusDays(2), "10:00", "Dr. Cruz", "Pending");
+        Appointment appointment1 = new Appointment(pet1.getId(), pet1.getOwner(), LocalDate.now().plusDays(2), "10:00", "Dr. Cruz", AppointmentStatus.PENDING);
         appointmentRepository.save(appointment1);
 
         // Create sample prescriptions
@@ -0,0 +1,26 @@
+package com.pawcare.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spring Boot silently ignores spring.threads.virtual.enabled below Java 21. Say so at startup,
+ * so a run with the virtual-threads profile on an older JDK is not mistaken for the real thing.
+ */
+@Component
+public class VirtualThreadsCheck {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadsCheck.class);
+
+    public VirtualThreadsCheck(@Value("${spring.threads.virtual.enabled:false}") boolean enabled) {
+        int feature = Runtime.version().feature();
+        if (enabled && feature < 21) {
+            LOG.warn("spring.threads.virtual.enabled=true but the JVM is Java {}; requests stay on platform threads. "
+                    + "Run on Java 21+ (build with -Pjava21).", feature);
+        } else if (enabled) {
+            LOG.info("Serving requests, @Async and @Scheduled work on virtual threads");
+        }
+    }
+}
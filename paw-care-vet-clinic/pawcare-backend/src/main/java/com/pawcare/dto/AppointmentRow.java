@@ -0,0 +1,36 @@
+package com.pawcare.dto;
+
+import com.pawcare.entity.AppointmentStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Appointment as returned by list pages: the same JSON as the entity, selected column by column,
+ * so a page never loads entities into the persistence context or goes near the pet association.
+ */
+public class AppointmentRow {
+    public Long id;
+    public Long petId;
+    public String owner;
+    public String code;
+    public LocalDate date;
+    public String time;
+    public String vet;
+    public AppointmentStatus status;
+    public LocalDate completedAt;
+    public long version;
+
+    public AppointmentRow(Long id, Long petId, String owner, String code, LocalDate date, String time,
+                          String vet, AppointmentStatus status, LocalDate completedAt, long version) {
+        this.id = id;
+        this.petId = petId;
+        this.owner = owner;
+        this.code = code;
+        this.date = date;
+        this.time = time;
+        this.vet = vet;
+        this.status = status;
+        this.completedAt = completedAt;
+        this.version = version;
+    }
+}
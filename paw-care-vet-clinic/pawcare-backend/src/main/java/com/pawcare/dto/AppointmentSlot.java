@@ -0,0 +1,20 @@
+package com.pawcare.dto;
+
+import java.time.LocalDate;
+
+/**
+ * The scheduling columns of an appointment, read in bulk to rebuild the vet schedule index.
+ */
+public class AppointmentSlot {
+    public Long id;
+    public String vetKey;
+    public LocalDate date;
+    public String time;
+
+    public AppointmentSlot(Long id, String vetKey, LocalDate date, String time) {
+        this.id = id;
+        this.vetKey = vetKey;
+        this.date = date;
+        this.time = time;
+    }
+}
@@ -0,0 +1,32 @@
+package com.pawcare.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Rows are numbered by input line (the CSV header is line 1);
+ * only the first maxReportedErrors failures are listed, the counts cover all of them.
+ */
+public class ImportResult {
+    public String entity;
+    public long received;
+    public long imported;
+    public long failed;
+    public int chunks;
+    public List<RowError> errors = new ArrayList<>();
+    public boolean errorsTruncated;
+
+    public static class RowError {
+        public long row;
+        public String error;
+
+        public RowError(long row, String error) {
+            this.row = row;
+            this.error = error;
+        }
+    }
+
+    public ImportResult(String entity) {
+        this.entity = entity;
+    }
+}
@@ -0,0 +1,49 @@
+package com.pawcare.dto;
+
+import com.pawcare.entity.InternedString;
+import com.pawcare.entity.Pet;
+import com.pawcare.storage.PhotoStorage;
+
+/**
+ * The searchable columns of a pet, plus its thumbnail for the result list: read in bulk to
+ * rebuild the pet search index, and returned by /api/pets/search with the hit's score filled in.
+ */
+public class PetSearchHit {
+    public Long id;
+    public String name;
+    public String species;
+    public String breed;
+    public String owner;
+    public String microchip;
+    public String thumbnail;
+    public int score;
+
+    public PetSearchHit(Long id, String name, String species, String breed, String owner, String microchip,
+                        String photo) {
+        this(id, name, species, breed, owner, microchip);
+        this.thumbnail = PhotoStorage.thumbnailUrl(photo);
+    }
+
+    private PetSearchHit(Long id, String name, String species, String breed, String owner, String microchip) {
+        this.id = id;
+        this.name = name;
+        this.species = species;
+        this.breed = breed;
+        this.owner = owner;
+        this.microchip = microchip;
+    }
+
+    /** A copy to hand out with its score; the indexed row itself is shared. */
+    public PetSearchHit scored(int score) {
+        PetSearchHit hit = new PetSearchHit(id, name, species, breed, owner, microchip);
+        hit.thumbnail = thumbnail;
+        hit.score = score;
+        return hit;
+    }
+
+    // Loaded pets are already interned; a pet that was just saved holds the request's own strings
+    public static PetSearchHit of(Pet pet) {
+        return new PetSearchHit(pet.getId(), pet.getName(), InternedString.intern(pet.getSpecies()),
+                InternedString.intern(pet.getBreed()), pet.getOwner(), pet.getMicrochip(), pet.getPhoto());
+    }
+}
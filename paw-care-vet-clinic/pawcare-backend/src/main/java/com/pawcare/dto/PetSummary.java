@@ -0,0 +1,42 @@
+package com.pawcare.dto;
+
+import com.pawcare.storage.PhotoStorage;
+
+/**
+ * Pet row for list screens: the pet's own columns plus a procedure count,
+ * built in a single query so listing never touches the procedures collection.
+ * Lists show the photo's thumbnail, never the full-size file.
+ */
+public class PetSummary {
+    public Long id;
+    public String name;
+    public String species;
+    public String breed;
+    public String gender;
+    public Integer age;
+    public String microchip;
+    public String owner;
+    public String address;
+    public String federation;
+    public String photo;
+    public String thumbnail;
+    public long procedureCount;
+
+    public PetSummary(Long id, String name, String species, String breed, String gender, Integer age,
+                      String microchip, String owner, String address, String federation, String photo,
+                      long procedureCount) {
+        this.id = id;
+        this.name = name;
+        this.species = species;
+        this.breed = breed;
+        this.gender = gender;
+        this.age = age;
+        this.microchip = microchip;
+        this.owner = owner;
+        this.address = address;
+        this.federation = federation;
+        this.photo = photo;
+        this.thumbnail = PhotoStorage.thumbnailUrl(photo);
+        this.procedureCount = procedureCount;
+    }
+}
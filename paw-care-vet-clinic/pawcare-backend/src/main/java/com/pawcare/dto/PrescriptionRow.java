@@ -0,0 +1,39 @@
+package com.pawcare.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Prescription as returned by list pages: the same JSON as the entity, built in the query,
+ * so a page never loads entities or the pet association.
+ */
+public class PrescriptionRow {
+    public Long id;
+    public Long petId;
+    public String pet;
+    public String owner;
+    public String drug;
+    public String dosage;
+    public String directions;
+    public String prescriber;
+    public LocalDate date;
+    public boolean dispensed;
+    public LocalDate dispensedAt;
+    public long version;
+
+    public PrescriptionRow(Long id, Long petId, String pet, String owner, String drug, String dosage,
+                           String directions, String prescriber, LocalDate date, boolean dispensed,
+                           LocalDate dispensedAt, long version) {
+        this.id = id;
+        this.petId = petId;
+        this.pet = pet;
+        this.owner = owner;
+        this.drug = drug;
+        this.dosage = dosage;
+        this.directions = directions;
+        this.prescriber = prescriber;
+        this.date = date;
+        this.dispensed = dispensed;
+        this.dispensedAt = dispensedAt;
+        this.version = version;
+    }
+}
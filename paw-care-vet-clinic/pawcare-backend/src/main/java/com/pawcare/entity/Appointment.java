@@ -1,13 +1,22 @@
 package com.pawcare.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.util.Locale;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+    @Index(name = "idx_appt_vet_key_date", columnList = "vet_key, date"),
+    @Index(name = "idx_appt_status_code_date", columnList = "status_code, date"),
+    @Index(name = "idx_appt_completed_at", columnList = "completed_at")
+})
 public class Appointment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "appointment_ids")
+    @TableGenerator(name = "appointment_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "appointments",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "pet_id")
@@ -17,12 +26,31 @@ public class Appointment {
     private String code;
     private LocalDate date;
     private String time;
+    @Convert(converter = InternedString.class)
     private String vet;
-    private String status;
+
+    @Convert(converter = AppointmentStatus.Code.class)
+    @Column(name = "status_code")
+    private AppointmentStatus status;
+
+    // Text status written before status_code existed; only read to backfill status_code
+    @JsonIgnore
+    @Column(name = "status", insertable = false, updatable = false)
+    private String legacyStatus;
+
+    // Lower-cased, trimmed copy of vet used for indexed lookups; null when unassigned
+    @JsonIgnore
+    @Column(name = "vet_key")
+    private String vetKey;
 
     @Column(name = "completed_at")
     private LocalDate completedAt;
 
+    // Incremented on every write; served to clients as the ETag
+    @Version
+    private long version;
+
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pet_id", insertable = false, updatable = false)
     private Pet pet;
@@ -30,7 +58,7 @@ public class Appointment {
     // Constructors
     public Appointment() {}
 
-    public Appointment(Long petId, String owner, LocalDate date, String time, String vet, String status) {
+    public Appointment(Long petId, String owner, LocalDate date, String time, String vet, AppointmentStatus status) {
         this.petId = petId;
         this.owner = owner;
         this.date = date;
@@ -39,6 +67,17 @@ public class Appointment {
         this.status = status;
     }
 
+    public static String vetKeyOf(String vet) {
+        if (vet == null || vet.isBlank()) return null;
+        return vet.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void syncVetKey() {
+        this.vetKey = vetKeyOf(vet);
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -61,13 +100,17 @@ public class Appointment {
     public String getVet() { return vet; }
     public void setVet(String vet) { this.vet = vet; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public String getVetKey() { return vetKey; }
+
+    public AppointmentStatus getStatus() { return status; }
+    public void setStatus(AppointmentStatus status) { this.status = status; }
 
     public LocalDate getCompletedAt() { return completedAt; }
     public void setCompletedAt(LocalDate completedAt) { this.completedAt = completedAt; }
 
     public Pet getPet() { return pet; }
     public void setPet(Pet pet) { this.pet = pet; }
-}
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
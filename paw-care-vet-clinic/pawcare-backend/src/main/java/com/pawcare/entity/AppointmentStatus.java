@@ -0,0 +1,65 @@
+package com.pawcare.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Appointment workflow state. Stored as a one-byte code (status_code) and served to clients as
+ * the label they have always seen ("Pending", "Approved by Vet", "Done").
+ */
+public enum AppointmentStatus {
+    PENDING(0, "Pending"),
+    APPROVED(1, "Approved by Vet"),
+    DONE(2, "Done");
+
+    private final byte code;
+    private final String label;
+
+    AppointmentStatus(int code, String label) {
+        this.code = (byte) code;
+        this.label = label;
+    }
+
+    public byte getCode() { return code; }
+
+    @JsonValue
+    public String getLabel() { return label; }
+
+    /** Matches the label or the constant name, ignoring case and surrounding spaces; null for anything else. */
+    public static AppointmentStatus parse(String value) {
+        if (value == null) return null;
+        String v = value.trim();
+        for (AppointmentStatus s : values()) {
+            if (s.label.equalsIgnoreCase(v) || s.name().equalsIgnoreCase(v)) return s;
+        }
+        return null;
+    }
+
+    @JsonCreator
+    static AppointmentStatus fromJson(String value) {
+        if (value == null || value.isBlank()) return null;
+        AppointmentStatus s = parse(value);
+        if (s == null) throw new IllegalArgumentException("Unknown appointment status: " + value);
+        return s;
+    }
+
+    public static AppointmentStatus fromCode(byte code) {
+        for (AppointmentStatus s : values()) if (s.code == code) return s;
+        throw new IllegalArgumentException("Unknown appointment status code: " + code);
+    }
+
+    @Converter
+    public static class Code implements AttributeConverter<AppointmentStatus, Byte> {
+        @Override
+        public Byte convertToDatabaseColumn(AppointmentStatus status) {
+            return status == null ? null : status.code;
+        }
+
+        @Override
+        public AppointmentStatus convertToEntityAttribute(Byte code) {
+            return code == null ? null : fromCode(code);
+        }
+    }
+}
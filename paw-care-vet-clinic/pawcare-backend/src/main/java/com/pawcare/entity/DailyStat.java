@@ -0,0 +1,45 @@
+package com.pawcare.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "daily_stats", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_daily_stats_date_counter", columnNames = {"stat_date", "counter"})
+})
+public class DailyStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false, length = 50)
+    private String counter; // PET_CREATED, APPT_DONE, RX_DISPENSED
+
+    @Column(nullable = false)
+    private long total;
+
+    // Constructors
+    public DailyStat() {}
+
+    public DailyStat(LocalDate statDate, String counter, long total) {
+        this.statDate = statDate;
+        this.counter = counter;
+        this.total = total;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getStatDate() { return statDate; }
+    public void setStatDate(LocalDate statDate) { this.statDate = statDate; }
+
+    public String getCounter() { return counter; }
+    public void setCounter(String counter) { this.counter = counter; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+}
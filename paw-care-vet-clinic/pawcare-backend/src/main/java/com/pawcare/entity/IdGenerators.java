@@ -0,0 +1,15 @@
+package com.pawcare.entity;
+
+/**
+ * Shared settings for the pooled table id generators. Ids are handed out in blocks of
+ * ALLOCATION_SIZE, so Hibernate knows them before insert and can batch the inserts
+ * (IDENTITY forces one round trip per row).
+ */
+public final class IdGenerators {
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "entity";
+    public static final String VALUE_COLUMN = "next_id";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {}
+}
@@ -0,0 +1,45 @@
+package com.pawcare.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary for text columns drawn from a small vocabulary (vet, prescriber, drug, species,
+ * breed). Every loaded value is swapped for one shared String per distinct value, so cached
+ * entities and the pet search index hold a reference instead of their own copy.
+ * The column is written unchanged.
+ *
+ * The dictionary is process-wide and only grows, so it is not used for per-client values such as
+ * owner names; once it holds MAX_TERMS values, new values are kept as loaded.
+ */
+@Converter
+public class InternedString implements AttributeConverter<String, String> {
+
+    private static final int MAX_TERMS = 1 << 14;
+    private static final ConcurrentHashMap<String, String> TERMS = new ConcurrentHashMap<>();
+
+    public static String intern(String value) {
+        if (value == null) return null;
+        String shared = TERMS.get(value);
+        if (shared != null) return shared;
+        if (TERMS.size() >= MAX_TERMS) return value;
+        shared = TERMS.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    public static int size() {
+        return TERMS.size();
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String value) {
+        return value;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String value) {
+        return intern(value);
+    }
+}
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "operation_logs")
+@Table(name = "operation_logs", indexes = {
+    @Index(name = "idx_oplog_ts", columnList = "timestamp"),
+    @Index(name = "idx_oplog_type_ts", columnList = "operation_type, timestamp")
+})
 public class OperationLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
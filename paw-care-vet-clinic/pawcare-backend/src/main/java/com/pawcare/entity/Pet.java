@@ -9,14 +9,19 @@ import java.util.List;
 @Table(name = "pets")
 public class Pet {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pet_ids")
+    @TableGenerator(name = "pet_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "pets",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank
     @Column(nullable = false)
     private String name;
 
+    @Convert(converter = InternedString.class)
     private String species;
+    @Convert(converter = InternedString.class)
     private String breed;
     private String gender;
     private Integer age;
@@ -26,6 +31,10 @@ public class Pet {
     private String federation;
     private String photo;
 
+    // Incremented on every write; served to clients as the ETag
+    @Version
+    private long version;
+
     @OneToMany(mappedBy = "pet", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Procedure> procedures = new ArrayList<>();
 
@@ -81,5 +90,7 @@ public class Pet {
 
     public List<Procedure> getProcedures() { return procedures; }
     public void setProcedures(List<Procedure> procedures) { this.procedures = procedures; }
-}
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
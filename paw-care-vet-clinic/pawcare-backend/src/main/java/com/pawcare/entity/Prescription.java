@@ -1,13 +1,20 @@
 package com.pawcare.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "prescriptions")
+@Table(name = "prescriptions", indexes = {
+    @Index(name = "idx_rx_dispensed_at", columnList = "dispensed_at"),
+    @Index(name = "idx_rx_queue", columnList = "dispensed, date, id")
+})
 public class Prescription {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "prescription_ids")
+    @TableGenerator(name = "prescription_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "prescriptions",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "pet_id")
@@ -15,9 +22,11 @@ public class Prescription {
 
     private String pet;
     private String owner;
+    @Convert(converter = InternedString.class)
     private String drug;
     private String dosage;
     private String directions;
+    @Convert(converter = InternedString.class)
     private String prescriber;
     private LocalDate date;
     private boolean dispensed;
@@ -25,6 +34,11 @@ public class Prescription {
     @Column(name = "dispensed_at")
     private LocalDate dispensedAt;
 
+    // Incremented on every write; served to clients as the ETag
+    @Version
+    private long version;
+
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pet_id", insertable = false, updatable = false)
     private Pet petEntity;
@@ -81,5 +95,7 @@ public class Prescription {
 
     public Pet getPetEntity() { return petEntity; }
     public void setPetEntity(Pet petEntity) { this.petEntity = petEntity; }
-}
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
@@ -1,5 +1,6 @@
 package com.pawcare.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.math.BigDecimal;
@@ -18,6 +19,7 @@ public class Procedure {
     private String procedure;
 
     private String notes;
+    @Convert(converter = InternedString.class)
     private String vet;
 
     // Extra fields to align with frontend automation
@@ -28,6 +30,7 @@ public class Procedure {
     @Column(precision = 12, scale = 2)
     private BigDecimal cost;
 
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pet_id")
     private Pet pet;
@@ -0,0 +1,8 @@
+package com.pawcare.events;
+
+/**
+ * One committed change, as streamed on /api/events: the operation type (APPT_APPROVED, RX_DISPENSED, ...),
+ * the id of the row it touched and the version that row now has. id and version are null when unknown
+ * (bulk imports, bulk patches). {@code json} is rendered once at publish time and shared by every subscriber.
+ */
+public record ChangeEvent(long seq, String type, Long id, Long version, String json) {}
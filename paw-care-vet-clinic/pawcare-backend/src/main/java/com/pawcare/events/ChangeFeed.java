@@ -0,0 +1,282 @@
+package com.pawcare.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process fan-out of committed changes to SSE subscribers.
+ *
+ * Published events go into a fixed ring buffer; nothing is queued per subscriber. Each subscriber
+ * only has a cursor (the last sequence number it was sent), and a small pool of sender threads
+ * walks it forward through the ring. A subscriber that falls more than a ring behind, or resumes
+ * from an id the ring no longer holds, gets a "reset" event (reload your lists) and skips to the
+ * newest event, so a slow tab costs one cursor rather than an ever-growing backlog, and never
+ * slows down publishers.
+ *
+ * Event ids are {epoch}-{seq}; an id from before a restart does not match the epoch and resets.
+ *
+ * Sends are blocking writes, and a client that stops reading blocks one until the connector's write
+ * timeout. A send still running after send-timeout is treated as stalled: the subscriber is dropped
+ * and the pool gets an extra sender for as long as that write holds its thread, so the others keep
+ * being served. Once the write returns the stream is closed and the client reconnects with its
+ * Last-Event-ID.
+ */
+@Component
+public class ChangeFeed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeFeed.class);
+    private static final int BATCH = 64;   // events per turn, so one busy subscriber cannot hog a sender
+
+    private final ObjectMapper objectMapper;
+    private final ChangeEvent[] ring;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor senders;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+    private volatile long latest;   // seq of the newest event; 0 before the first
+
+    public ChangeFeed(ObjectMapper objectMapper,
+                      @Value("${pawcare.events.buffer-size:4096}") int bufferSize,
+                      @Value("${pawcare.events.max-subscribers:1000}") int maxSubscribers,
+                      @Value("${pawcare.events.sender-threads:2}") int senderThreads,
+                      @Value("${pawcare.events.timeout:PT30M}") Duration timeout,
+                      @Value("${pawcare.events.send-timeout:PT5S}") Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.ring = new ChangeEvent[Math.max(16, bufferSize)];
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        int threads = Math.max(1, senderThreads);
+        this.senders = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "change-feed-sender");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean heartbeat;
+        long cursor;   // only touched by the sender that holds `scheduled`
+        // The running send, if any; guarded by this subscriber
+        boolean sending;
+        long sendStarted;
+        boolean stalled;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    /** Appends an event and wakes every subscriber. Call after the change has committed. */
+    public void publish(String type, Long id, Long version) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("type", type);
+        if (id != null) node.put("id", id); else node.putNull("id");
+        if (version != null) node.put("version", version); else node.putNull("version");
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        synchronized (ring) {
+            long seq = latest + 1;
+            ring[(int) (seq % ring.length)] = new ChangeEvent(seq, type, id, version, json);
+            latest = seq;
+        }
+        published.increment();
+        for (Subscriber s : subscribers) schedule(s);
+    }
+
+    /**
+     * Opens a stream. {@code lastEventId} (the Last-Event-ID header a reconnecting EventSource sends)
+     * resumes after that event if the ring still holds what came next; otherwise the stream starts
+     * with a reset. Returns null when the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) return null;
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        // A cursor of -1 makes the sender start with the reset, so it cannot interleave with events
+        Subscriber s = new Subscriber(emitter, resumePoint(lastEventId));
+        emitter.onCompletion(() -> subscribers.remove(s));
+        emitter.onTimeout(() -> subscribers.remove(s));
+        emitter.onError(e -> subscribers.remove(s));
+        subscribers.add(s);
+        s.heartbeat = true;   // flushes the response headers right away
+        schedule(s);
+        return emitter;
+    }
+
+    // The seq to continue after, or -1 when the id is unknown or its successors have been overwritten
+    private long resumePoint(String lastEventId) {
+        long newest = latest;
+        if (lastEventId == null || lastEventId.isBlank()) return newest;
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) return -1;
+        long seq;
+        try {
+            seq = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (seq > newest || seq < newest - ring.length) return -1;
+        return seq;
+    }
+
+    private void schedule(Subscriber s) {
+        if (!s.scheduled.compareAndSet(false, true)) return;
+        try {
+            senders.execute(() -> drain(s));
+        } catch (RejectedExecutionException e) {
+            s.scheduled.set(false);   // shutting down
+        }
+    }
+
+    private void drain(Subscriber s) {
+        try {
+            if (s.cursor < 0) {
+                sendReset(s, latest);
+            }
+            int sent = 0;
+            while (s.cursor < latest && sent < BATCH) {
+                long next = s.cursor + 1;
+                ChangeEvent e = ring[(int) (next % ring.length)];
+                if (e == null || e.seq() != next) {
+                    sendReset(s, latest);   // lapped by the ring
+                    continue;
+                }
+                send(s, SseEmitter.event().id(epoch + "-" + e.seq()).data(e.json(), MediaType.APPLICATION_JSON));
+                s.cursor = next;
+                sent++;
+            }
+            if (s.heartbeat && sent == 0) {
+                send(s, SseEmitter.event().comment(""));
+            }
+            s.heartbeat = false;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away, the emitter already completed, or the stream was dropped as stalled
+            subscribers.remove(s);
+            return;
+        } finally {
+            s.scheduled.set(false);
+        }
+        if (s.cursor < latest) schedule(s);
+    }
+
+    private void sendReset(Subscriber s, long newest) throws IOException {
+        resets.increment();
+        send(s, SseEmitter.event().id(epoch + "-" + newest).name("reset").data("{}", MediaType.APPLICATION_JSON));
+        s.cursor = newest;
+        s.heartbeat = false;
+    }
+
+    private void send(Subscriber s, SseEmitter.SseEventBuilder event) throws IOException {
+        synchronized (s) {
+            if (s.stalled) throw new IllegalStateException("Dropped after a stalled send");
+            s.sending = true;
+            s.sendStarted = System.nanoTime();
+        }
+        boolean stalled;
+        try {
+            s.emitter.send(event);
+        } finally {
+            synchronized (s) {
+                s.sending = false;
+                stalled = s.stalled;
+            }
+            if (stalled) resizeSenders(-1);
+        }
+        if (stalled) {
+            s.emitter.complete();   // the client reconnects and resumes from its Last-Event-ID
+            throw new IllegalStateException("Dropped after a stalled send");
+        }
+    }
+
+    /**
+     * Drops subscribers whose send has run past send-timeout. The emitter is not touched here: it is
+     * locked by the blocked send, and this runs on the shared scheduler thread.
+     */
+    @Scheduled(fixedDelayString = "${pawcare.events.stall-check-ms:1000}")
+    public void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber s : subscribers) {
+            synchronized (s) {
+                if (!s.sending || s.stalled || now - s.sendStarted < sendTimeoutNanos) continue;
+                s.stalled = true;
+            }
+            subscribers.remove(s);
+            stalls.increment();
+            resizeSenders(1);
+            LOG.debug("Dropped an event stream whose send has been blocked for over {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+        }
+    }
+
+    // Core size first when shrinking and maximum first when growing, so core never exceeds maximum
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            int size = senders.getCorePoolSize() + delta;
+            if (delta > 0) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    /** Comment line to every subscriber, so idle connections are not cut by proxies and dead ones are noticed. */
+    @Scheduled(fixedDelayString = "${pawcare.events.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Subscriber s : subscribers) {
+            s.heartbeat = true;
+            schedule(s);
+        }
+    }
+
+    public int subscriberCount() { return subscribers.size(); }
+    public long publishedCount() { return published.sum(); }
+    public long resetCount() { return resets.sum(); }
+    public long stallCount() { return stalls.sum(); }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        for (Subscriber s : subscribers) {
+            try {
+                s.emitter.complete();
+            } catch (RuntimeException e) {
+                LOG.debug("Closing event stream failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.pawcare.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket histogram. Recording is a binary search over the bounds plus two LongAdder
+ * increments, so it is safe to call on every request. Quantiles are estimated by linear
+ * interpolation inside the bucket that holds them, which is as precise as the bucket layout.
+ */
+public class Histogram {
+
+    private final long[] bounds;        // inclusive upper bounds, ascending; one more bucket catches the rest
+    private final LongAdder[] counts;
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram(long... bounds) {
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+    }
+
+    /** 1-2-5 series from 100 us to 30 s, in nanoseconds. */
+    public static Histogram latency() {
+        return new Histogram(
+                100_000L, 200_000L, 500_000L,
+                1_000_000L, 2_000_000L, 5_000_000L,
+                10_000_000L, 20_000_000L, 50_000_000L,
+                100_000_000L, 200_000_000L, 500_000_000L,
+                1_000_000_000L, 2_000_000_000L, 5_000_000_000L,
+                10_000_000_000L, 30_000_000_000L);
+    }
+
+    public void record(long value) {
+        int i = Arrays.binarySearch(bounds, value);
+        counts[i >= 0 ? i : -i - 1].increment();
+        sum.add(value);
+    }
+
+    public long count() {
+        long n = 0;
+        for (LongAdder c : counts) n += c.sum();
+        return n;
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    /** Estimated value at quantile q (0..1); 0 when empty. Values past the last bound report that bound. */
+    public double quantile(double q) {
+        long[] snapshot = new long[counts.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) total += snapshot[i] = counts[i].sum();
+        if (total == 0) return 0;
+        double rank = q * total;
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            if (seen + snapshot[i] >= rank && snapshot[i] > 0) {
+                long lower = i == 0 ? 0 : bounds[i - 1];
+                return lower + (bounds[i] - lower) * ((rank - seen) / snapshot[i]);
+            }
+            seen += snapshot[i];
+        }
+        return bounds[bounds.length - 1];
+    }
+
+    /** Writes the _bucket/_sum/_count series, dividing values by {@code scale} (1e9 for nanoseconds to seconds). */
+    void write(PrometheusText out, String name, String labels, double scale) {
+        long cumulative = 0;
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i].sum();
+            out.sample(name + "_bucket", prefix + "le=\"" + PrometheusText.number(bounds[i] / scale) + "\"", cumulative);
+        }
+        cumulative += counts[bounds.length].sum();
+        out.sample(name + "_bucket", prefix + "le=\"+Inf\"", cumulative);
+        out.sample(name + "_sum", labels, sum.sum() / scale);
+        out.sample(name + "_count", labels, cumulative);
+    }
+}
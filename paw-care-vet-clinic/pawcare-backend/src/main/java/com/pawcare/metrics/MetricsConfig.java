@@ -0,0 +1,64 @@
+package com.pawcare.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wires the hand-rolled metrics behind /api/ops/metrics into Spring MVC, Hibernate and Hikari.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    @Bean
+    public RequestMetrics requestMetrics() {
+        return requestMetrics;
+    }
+
+    @Bean
+    public OperationLogMetrics operationLogMetrics() {
+        return new OperationLogMetrics();
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetrics);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounter() {
+        StatementInspector inspector = sql -> {
+            requestMetrics.statement();
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    // The tracker has to be installed before the pool starts, i.e. before the first getConnection()
+    @Bean
+    public static BeanPostProcessor poolMetricsInstaller(ObjectProvider<PoolMetrics> poolMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari && hikari.getMetricRegistry() == null) {
+                    hikari.setMetricsTrackerFactory(poolMetrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.pawcare.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Operation-log entries handed to the audit sink, by type; rate() over it is the log write rate. */
+public class OperationLogMetrics {
+
+    private final Map<String, LongAdder> byType = new ConcurrentSkipListMap<>();
+
+    public void recorded(String type) {
+        LongAdder n = byType.get(type);
+        if (n == null) n = byType.computeIfAbsent(type, t -> new LongAdder());
+        n.increment();
+    }
+
+    public void write(PrometheusText out) {
+        out.family("pawcare_operation_log_entries_total", "counter", "Operation-log entries written, by type.");
+        byType.forEach((type, n) -> out.sample("pawcare_operation_log_entries_total", PrometheusText.label("type", type), n.sum()));
+    }
+}
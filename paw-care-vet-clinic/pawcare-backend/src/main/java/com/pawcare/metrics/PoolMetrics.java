@@ -0,0 +1,72 @@
+package com.pawcare.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hikari metrics tracker: how long getConnection() waits, how long connections are held, timeouts,
+ * and the pool's own gauges. Waits are also charged to the current request (see RequestMetrics).
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final Map<String, Pool> pools = new ConcurrentSkipListMap<>();
+
+    private static final class Pool implements IMetricsTracker {
+        final PoolStats stats;
+        final Histogram acquire = Histogram.latency();
+        final Histogram usageMillis = new Histogram(1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000);
+        final LongAdder timeouts = new LongAdder();
+
+        Pool(PoolStats stats) { this.stats = stats; }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquire.record(elapsedAcquiredNanos);
+            RequestMetrics.poolWait(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.record(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Pool pool = new Pool(poolStats);
+        pools.put(poolName, pool);
+        return pool;
+    }
+
+    public void write(PrometheusText out) {
+        out.family("pawcare_db_pool_acquire_seconds", "histogram", "Time spent waiting for a pooled connection.");
+        pools.forEach((name, p) -> p.acquire.write(out, "pawcare_db_pool_acquire_seconds", pool(name), 1e9));
+        out.family("pawcare_db_pool_usage_seconds", "histogram", "Time connections were held before being returned.");
+        pools.forEach((name, p) -> p.usageMillis.write(out, "pawcare_db_pool_usage_seconds", pool(name), 1e3));
+        out.family("pawcare_db_pool_timeouts_total", "counter", "getConnection() calls that timed out.");
+        pools.forEach((name, p) -> out.sample("pawcare_db_pool_timeouts_total", pool(name), p.timeouts.sum()));
+
+        out.family("pawcare_db_pool_connections", "gauge", "Pool connections by state.");
+        pools.forEach((name, p) -> {
+            out.sample("pawcare_db_pool_connections", pool(name) + ",state=\"active\"", p.stats.getActiveConnections());
+            out.sample("pawcare_db_pool_connections", pool(name) + ",state=\"idle\"", p.stats.getIdleConnections());
+            out.sample("pawcare_db_pool_connections", pool(name) + ",state=\"max\"", p.stats.getMaxConnections());
+        });
+        out.family("pawcare_db_pool_pending_threads", "gauge", "Threads waiting for a connection.");
+        pools.forEach((name, p) -> out.sample("pawcare_db_pool_pending_threads", pool(name), p.stats.getPendingThreads()));
+    }
+
+    private static String pool(String name) {
+        return PrometheusText.label("pool", name);
+    }
+}
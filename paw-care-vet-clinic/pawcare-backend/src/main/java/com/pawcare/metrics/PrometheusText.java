@@ -0,0 +1,59 @@
+package com.pawcare.metrics;
+
+/**
+ * Builds a Prometheus text exposition (format 0.0.4): a HELP/TYPE header per family followed by
+ * its samples. Labels are passed pre-rendered, e.g. {@code route="/api/pets",method="GET"}.
+ */
+public class PrometheusText {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder(16 * 1024);
+
+    public PrometheusText family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public PrometheusText sample(String name, String labels, long value) {
+        start(name, labels).append(value).append('\n');
+        return this;
+    }
+
+    public PrometheusText sample(String name, String labels, double value) {
+        start(name, labels).append(number(value)).append('\n');
+        return this;
+    }
+
+    private StringBuilder start(String name, String labels) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        return out.append(' ');
+    }
+
+    /** {@code name="value"} with backslash, quote and newline escaped. */
+    public static String label(String name, String value) {
+        StringBuilder b = new StringBuilder(name.length() + value.length() + 3).append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> b.append("\\\\");
+                case '"' -> b.append("\\\"");
+                case '\n' -> b.append("\\n");
+                default -> b.append(c);
+            }
+        }
+        return b.append('"').toString();
+    }
+
+    static String number(double v) {
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+        return Double.toString(v);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
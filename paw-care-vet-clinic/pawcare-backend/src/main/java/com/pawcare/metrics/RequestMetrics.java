@@ -0,0 +1,121 @@
+package com.pawcare.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-route request metrics: latency, Hibernate statements and connection-pool wait, keyed by
+ * method, mapping pattern (/api/pets/{id}, not the raw path) and status.
+ *
+ * Statements and pool waits are attributed through a thread-local opened in preHandle, so they
+ * cover work done on the request thread; a streaming body written later on another thread only
+ * shows up in the latency.
+ */
+public class RequestMetrics implements AsyncHandlerInterceptor {
+
+    private static final String STARTED = RequestMetrics.class.getName() + ".started";
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private final Map<Route, RouteStats> routes = new ConcurrentHashMap<>();
+    private final LongAdder statements = new LongAdder();
+
+    private record Route(String method, String pattern, int status) {}
+
+    private static final class Counts {
+        int statements;
+        long poolWaitNanos;
+    }
+
+    private static final class RouteStats {
+        final Histogram latency = Histogram.latency();
+        final Histogram statements = new Histogram(0, 1, 2, 3, 5, 10, 20, 50, 100);
+        final LongAdder poolWaitNanos = new LongAdder();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // An async dispatch comes through here again; keep the original start time
+        if (request.getAttribute(STARTED) == null) request.setAttribute(STARTED, System.nanoTime());
+        CURRENT.set(new Counts());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Counts counts = CURRENT.get();
+        CURRENT.remove();
+        Object started = request.getAttribute(STARTED);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (!(started instanceof Long start) || pattern == null) return;
+
+        int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+        RouteStats stats = routes.computeIfAbsent(new Route(request.getMethod(), pattern.toString(), status), r -> new RouteStats());
+        stats.latency.record(System.nanoTime() - start);
+        if (counts != null) {
+            stats.statements.record(counts.statements);
+            stats.poolWaitNanos.add(counts.poolWaitNanos);
+        }
+    }
+
+    /** Called for every SQL statement Hibernate prepares. */
+    void statement() {
+        statements.increment();
+        Counts counts = CURRENT.get();
+        if (counts != null) counts.statements++;
+    }
+
+    /** Called with the time a thread spent waiting for a pooled connection. */
+    static void poolWait(long nanos) {
+        Counts counts = CURRENT.get();
+        if (counts != null) counts.poolWaitNanos += nanos;
+    }
+
+    public void write(PrometheusText out) {
+        var sorted = routes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(Route::pattern)
+                        .thenComparing(Route::method).thenComparingInt(Route::status)))
+                .toList();
+
+        out.family("pawcare_http_request_duration_seconds", "histogram", "Request latency by route.");
+        for (var e : sorted) e.getValue().latency.write(out, "pawcare_http_request_duration_seconds", labels(e.getKey()), 1e9);
+
+        out.family("pawcare_http_request_duration_quantile_seconds", "gauge",
+                "Estimated p50/p95/p99 request latency by route since startup.");
+        for (var e : sorted) {
+            Histogram h = e.getValue().latency;
+            for (String q : new String[] {"0.5", "0.95", "0.99"}) {
+                out.sample("pawcare_http_request_duration_quantile_seconds",
+                        labels(e.getKey()) + ",quantile=\"" + q + "\"", Math.round(h.quantile(Double.parseDouble(q))) / 1e9);
+            }
+        }
+
+        out.family("pawcare_http_request_statements", "histogram", "Hibernate SQL statements per request by route.");
+        for (var e : sorted) e.getValue().statements.write(out, "pawcare_http_request_statements", labels(e.getKey()), 1);
+
+        out.family("pawcare_http_request_pool_wait_seconds_total", "counter",
+                "Time requests spent waiting for a database connection, by route.");
+        for (var e : sorted) {
+            out.sample("pawcare_http_request_pool_wait_seconds_total", labels(e.getKey()), e.getValue().poolWaitNanos.sum() / 1e9);
+        }
+
+        out.family("pawcare_hibernate_statements_total", "counter", "SQL statements prepared by Hibernate, on any thread.");
+        out.sample("pawcare_hibernate_statements_total", "", statements.sum());
+    }
+
+    private static String labels(Route r) {
+        return PrometheusText.label("method", r.method()) + "," + PrometheusText.label("route", r.pattern())
+                + ",status=\"" + r.status() + "\"";
+    }
+}
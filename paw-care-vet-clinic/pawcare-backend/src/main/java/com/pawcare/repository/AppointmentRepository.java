@@ -1,10 +1,67 @@
 package com.pawcare.repository;
 
+import com.pawcare.dto.AppointmentSlot;
 import com.pawcare.entity.Appointment;
+import com.pawcare.entity.AppointmentStatus;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-}
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, JpaSpecificationExecutor<Appointment> {
+
+    // Fills vet_key for rows written before the column existed
+    @Transactional
+    @Modifying
+    @Query("UPDATE Appointment a SET a.vetKey = LOWER(TRIM(a.vet)) WHERE a.vetKey IS NULL AND a.vet IS NOT NULL AND TRIM(a.vet) <> ''")
+    int backfillVetKeys();
+
+    // Fills status_code from the text status of rows written before the column existed
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE appointments SET status_code = CASE LOWER(TRIM(status)) " +
+                   "WHEN 'pending' THEN 0 WHEN 'approved by vet' THEN 1 WHEN 'done' THEN 2 END " +
+                   "WHERE status_code IS NULL AND status IS NOT NULL", nativeQuery = true)
+    int backfillStatusCodes();
+
+    // Everything the schedule index needs, without materializing Appointment entities
+    @Query("SELECT new com.pawcare.dto.AppointmentSlot(a.id, a.vetKey, a.date, a.time) FROM Appointment a " +
+           "WHERE a.vetKey IS NOT NULL AND a.date IS NOT NULL AND a.time IS NOT NULL")
+    List<AppointmentSlot> findScheduleSlots();
+
+    // Filters, each backed by idx_appt_vet_key_date / idx_appt_status_code_date / the primary key
+    static Specification<Appointment> vetKeyIs(String vetKey) {
+        return (root, query, cb) -> cb.equal(root.get("vetKey"), vetKey);
+    }
 
+    static Specification<Appointment> unassigned() {
+        return (root, query, cb) -> cb.isNull(root.get("vetKey"));
+    }
+
+    static Specification<Appointment> statusIs(AppointmentStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    static Specification<Appointment> none() {
+        return (root, query, cb) -> cb.disjunction();
+    }
+
+    static Specification<Appointment> dateFrom(LocalDate from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("date"), from);
+    }
+
+    static Specification<Appointment> dateTo(LocalDate to) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("date"), to);
+    }
+
+    static Specification<Appointment> idAfter(long afterId) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), afterId);
+    }
+}
@@ -0,0 +1,50 @@
+package com.pawcare.repository;
+
+import com.pawcare.entity.DailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailyStatRepository extends JpaRepository<DailyStat, Long> {
+
+    // delta may be negative, when a counted row is deleted or leaves its counted state
+    @Modifying
+    @Query(value = "INSERT INTO daily_stats (stat_date, counter, total) VALUES (:statDate, :counter, :delta) " +
+                   "ON DUPLICATE KEY UPDATE total = total + :delta", nativeQuery = true)
+    void add(@Param("statDate") LocalDate statDate, @Param("counter") String counter, @Param("delta") long delta);
+
+    // At most one row per counter per day, so a month is a sum over ~93 rows
+    @Query("SELECT d.counter, SUM(d.total) FROM DailyStat d " +
+           "WHERE d.statDate BETWEEN :startDate AND :endDate GROUP BY d.counter")
+    List<Object[]> sumByCounterBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_stats", nativeQuery = true)
+    int clear();
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_stats (stat_date, counter, total) " +
+                   "SELECT DATE(timestamp), operation_type, COUNT(*) FROM operation_logs " +
+                   "WHERE operation_type IN (:counters) GROUP BY DATE(timestamp), operation_type", nativeQuery = true)
+    int rebuildFromOperationLogs(@Param("counters") Collection<String> counters);
+
+    // Row-state counters, grouped along idx_appt_completed_at / idx_rx_dispensed_at (status_code 2 is Done)
+    @Modifying
+    @Query(value = "INSERT INTO daily_stats (stat_date, counter, total) " +
+                   "SELECT completed_at, 'APPT_DONE', COUNT(*) FROM appointments " +
+                   "WHERE completed_at IS NOT NULL AND status_code = 2 GROUP BY completed_at", nativeQuery = true)
+    int rebuildDoneAppointments();
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_stats (stat_date, counter, total) " +
+                   "SELECT dispensed_at, 'RX_DISPENSED', COUNT(*) FROM prescriptions " +
+                   "WHERE dispensed_at IS NOT NULL AND dispensed = TRUE GROUP BY dispensed_at", nativeQuery = true)
+    int rebuildDispensedPrescriptions();
+}
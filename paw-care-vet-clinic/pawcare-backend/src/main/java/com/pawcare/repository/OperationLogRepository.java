@@ -1,18 +1,41 @@
 package com.pawcare.repository;
 
 import com.pawcare.entity.OperationLog;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface OperationLogRepository extends JpaRepository<OperationLog, Long> {
     
-    @Query("SELECT o FROM OperationLog o WHERE DATE(o.ts) BETWEEN :startDate AND :endDate ORDER BY o.ts")
-    List<OperationLog> findByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    // Half-open range on the bare column so MySQL can range-scan idx_oplog_ts
+    @Query("SELECT o FROM OperationLog o WHERE o.ts >= :start AND o.ts < :end ORDER BY o.ts")
+    List<OperationLog> findByTsRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    default List<OperationLog> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        return findByTsRange(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+    }
+
+    // Export cursor: with useCursorFetch=true Connector/J pulls rows in fetch-size chunks instead of buffering them all
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM OperationLog o WHERE o.ts >= :start AND o.ts < :end AND o.id > :afterId" +
+           " AND (:type IS NULL OR o.type = :type) AND (:petId IS NULL OR o.petId = :petId) ORDER BY o.id")
+    Stream<OperationLog> streamForExport(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                         @Param("type") String type, @Param("petId") Long petId,
+                                         @Param("afterId") long afterId);
 }
 
@@ -1,10 +1,56 @@
 package com.pawcare.repository;
 
+import com.pawcare.dto.PetSearchHit;
+import com.pawcare.dto.PetSummary;
 import com.pawcare.entity.Pet;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface PetRepository extends JpaRepository<Pet, Long> {
-}
 
+    // Keyset page over the primary key: WHERE id > :afterId ORDER BY id LIMIT n
+    List<Pet> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // List page with a correlated count instead of loading each pet's procedures
+    @Query("SELECT new com.pawcare.dto.PetSummary(p.id, p.name, p.species, p.breed, p.gender, p.age," +
+           " p.microchip, p.owner, p.address, p.federation, p.photo," +
+           " (SELECT COUNT(pr) FROM Procedure pr WHERE pr.pet = p))" +
+           " FROM Pet p WHERE p.id > :afterId ORDER BY p.id")
+    List<PetSummary> findSummariesAfter(@Param("afterId") long afterId, Limit limit);
+
+    // Searchable columns of every pet, for rebuilding the search index at startup
+    @Query("SELECT new com.pawcare.dto.PetSearchHit(p.id, p.name, p.species, p.breed, p.owner, p.microchip, p.photo)" +
+           " FROM Pet p ORDER BY p.id")
+    List<PetSearchHit> findSearchRows();
+
+    @Query("SELECT new com.pawcare.dto.PetSearchHit(p.id, p.name, p.species, p.breed, p.owner, p.microchip, p.photo)" +
+           " FROM Pet p WHERE p.id = :id")
+    Optional<PetSearchHit> findSearchRow(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "procedures")
+    @Query("SELECT p FROM Pet p WHERE p.id = :id")
+    Optional<Pet> findWithProceduresById(@Param("id") Long id);
+
+    // Initializes the procedures of an already-paged set of pets in one statement
+    @Query("SELECT DISTINCT p FROM Pet p LEFT JOIN FETCH p.procedures WHERE p.id IN :ids")
+    List<Pet> fetchProcedures(@Param("ids") Collection<Long> ids);
+
+    // Which of the given ids exist; used to reject import rows that point at unknown pets
+    @Query("SELECT p.id FROM Pet p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Touches only the photo column (and the version); no select, no merge of procedures
+    @Modifying
+    @Query("UPDATE Pet p SET p.photo = :photo, p.version = p.version + 1 WHERE p.id = :id")
+    int updatePhoto(@Param("id") Long id, @Param("photo") String photo);
+}
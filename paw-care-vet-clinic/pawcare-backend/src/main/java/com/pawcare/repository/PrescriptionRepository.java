@@ -1,10 +1,37 @@
 package com.pawcare.repository;
 
+import com.pawcare.dto.PrescriptionRow;
 import com.pawcare.entity.Prescription;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @Repository
 public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {
-}
 
+    String SELECT_ROW = "SELECT new com.pawcare.dto.PrescriptionRow(r.id, r.petId, r.pet, r.owner, r.drug, r.dosage," +
+            " r.directions, r.prescriber, r.date, r.dispensed, r.dispensedAt, r.version)";
+
+    // Keyset page over the primary key, selected straight into list rows
+    @Query(SELECT_ROW + " FROM Prescription r WHERE r.id > :afterId ORDER BY r.id")
+    List<PrescriptionRow> findRowsAfter(@Param("afterId") long afterId, Limit limit);
+
+    // Pharmacy queue: undispensed rows in (date, id) order, walked along idx_rx_queue so dispensed
+    // history is never read. Undated rows sort first, as NULLs do in an ascending index; the
+    // first method continues a page from among them, the second from a dated row.
+    @Query(SELECT_ROW + " FROM Prescription r WHERE r.dispensed = false" +
+           " AND (r.date IS NOT NULL OR r.id > :afterId) ORDER BY r.date, r.id")
+    List<PrescriptionRow> findQueueAfterUndated(@Param("afterId") long afterId, Limit limit);
+
+    @Query(SELECT_ROW + " FROM Prescription r WHERE r.dispensed = false" +
+           " AND (r.date > :afterDate OR (r.date = :afterDate AND r.id > :afterId)) ORDER BY r.date, r.id")
+    List<PrescriptionRow> findQueueAfter(@Param("afterDate") LocalDate afterDate, @Param("afterId") long afterId,
+                                         Limit limit);
+
+    long countByDispensedFalse();
+}
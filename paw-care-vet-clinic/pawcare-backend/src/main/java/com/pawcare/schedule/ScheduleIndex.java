@@ -0,0 +1,222 @@
+package com.pawcare.schedule;
+
+import com.pawcare.dto.AppointmentSlot;
+import com.pawcare.entity.Appointment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory view of every vet's booked slots, one sorted map per vet and day.
+ *
+ * Appointments carry no duration, so each one occupies slotMinutes from its start time. With a
+ * uniform length two bookings overlap exactly when their starts are less than slotMinutes apart,
+ * which makes the conflict check a single range lookup in the day's TreeMap.
+ *
+ * A booking is reserved before the appointment row is written, so concurrent requests for the same
+ * slot serialize on the day's lock and the loser gets a SlotConflictException. The service confirms
+ * the reservation against the appointment id after commit, or releases it on rollback.
+ */
+@Component
+public class ScheduleIndex {
+
+    private static final DateTimeFormatter TWELVE_HOUR = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive().appendPattern("h:mm[ ]a").toFormatter(Locale.ENGLISH);
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final int slotMinutes;
+    private final int openMinute;
+    private final int closeMinute;
+
+    private final Map<DayKey, DaySchedule> days = new ConcurrentHashMap<>();
+    private final Map<Long, Booking> byAppointment = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private record DayKey(String vetKey, LocalDate date) {}
+
+    /** A held slot. appointmentId is null while the booking is still pending its transaction. */
+    public static final class Booking {
+        final DayKey day;
+        final int start;
+        final long seq;
+        volatile Long appointmentId;
+
+        private Booking(DayKey day, int start, long seq) {
+            this.day = day;
+            this.start = start;
+            this.seq = seq;
+        }
+
+        public String getVetKey() { return day.vetKey(); }
+        public LocalDate getDate() { return day.date(); }
+        public String getTime() { return format(start); }
+    }
+
+    private static final class DaySchedule {
+        // Keyed by start minute and sequence so that rows already overlapping in the database still fit
+        final NavigableMap<Long, Booking> byStart = new TreeMap<>();
+    }
+
+    public ScheduleIndex(@Value("${pawcare.schedule.slot-minutes:30}") int slotMinutes,
+                         @Value("${pawcare.schedule.open:08:00}") String open,
+                         @Value("${pawcare.schedule.close:17:00}") String close) {
+        if (slotMinutes <= 0) throw new IllegalArgumentException("pawcare.schedule.slot-minutes must be positive");
+        this.slotMinutes = slotMinutes;
+        this.openMinute = LocalTime.parse(open).toSecondOfDay() / 60;
+        this.closeMinute = LocalTime.parse(close).toSecondOfDay() / 60;
+    }
+
+    /** Minute of day for an appointment time such as "14:30" or "2:30 PM"; null when blank. */
+    public static Integer startMinute(String time) {
+        if (time == null || time.isBlank()) return null;
+        String t = time.trim();
+        try {
+            return LocalTime.parse(t).toSecondOfDay() / 60;
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalTime.parse(t, TWELVE_HOUR).toSecondOfDay() / 60;
+            } catch (DateTimeParseException e2) {
+                throw new IllegalArgumentException("Unrecognised appointment time: " + time);
+            }
+        }
+    }
+
+    /**
+     * Holds the slot for an appointment at vet/date/time, ignoring the appointment's own current
+     * booking (so it can move within its slot). Returns null when the appointment is not schedulable
+     * (no vet, date or time); throws SlotConflictException when the slot is taken.
+     */
+    public Booking reserve(Long appointmentId, String vet, LocalDate date, String time) {
+        String vetKey = Appointment.vetKeyOf(vet);
+        Integer start = startMinute(time);
+        if (vetKey == null || date == null || start == null) return null;
+
+        DayKey key = new DayKey(vetKey, date);
+        DaySchedule day = days.computeIfAbsent(key, k -> new DaySchedule());
+        synchronized (day) {
+            for (Booking other : overlapping(day, start).values()) {
+                if (appointmentId == null || !appointmentId.equals(other.appointmentId)) {
+                    throw new SlotConflictException(vet.trim() + " already has an appointment at "
+                            + format(other.start) + " on " + date);
+                }
+            }
+            Booking booking = new Booking(key, start, sequence.incrementAndGet());
+            day.byStart.put(sortKey(start, booking.seq), booking);
+            return booking;
+        }
+    }
+
+    /**
+     * Makes booking the appointment's slot once its transaction has committed, dropping whatever slot
+     * the appointment held before. A null booking means the appointment no longer occupies a slot.
+     */
+    public void confirm(Long appointmentId, Booking booking) {
+        Booking previous;
+        if (booking == null) {
+            previous = byAppointment.remove(appointmentId);
+        } else {
+            booking.appointmentId = appointmentId;
+            previous = byAppointment.put(appointmentId, booking);
+        }
+        if (previous != null && previous != booking) release(previous);
+    }
+
+    public void release(Booking booking) {
+        if (booking == null) return;
+        DaySchedule day = days.get(booking.day);
+        if (day == null) return;
+        synchronized (day) {
+            day.byStart.remove(sortKey(booking.start, booking.seq));
+        }
+    }
+
+    public void remove(Long appointmentId) {
+        release(byAppointment.remove(appointmentId));
+    }
+
+    /** The slot an appointment currently holds, or null when it has none. */
+    public Booking bookingOf(Long appointmentId) {
+        return byAppointment.get(appointmentId);
+    }
+
+    /** Start times on the slot grid within opening hours that the vet has free on date. */
+    public List<String> freeSlots(String vet, LocalDate date) {
+        String vetKey = Appointment.vetKeyOf(vet);
+        if (vetKey == null) throw new IllegalArgumentException("Vet is required");
+        List<String> free = new ArrayList<>();
+        DaySchedule day = days.get(new DayKey(vetKey, date));
+        if (day == null) {
+            for (int m = openMinute; m + slotMinutes <= closeMinute; m += slotMinutes) free.add(format(m));
+            return free;
+        }
+        synchronized (day) {
+            for (int m = openMinute; m + slotMinutes <= closeMinute; m += slotMinutes) {
+                if (overlapping(day, m).isEmpty()) free.add(format(m));
+            }
+        }
+        return free;
+    }
+
+    /** Replaces the whole index; used at startup. Rows with unparseable times are left out. */
+    public synchronized int rebuild(List<AppointmentSlot> slots) {
+        days.clear();
+        byAppointment.clear();
+        int indexed = 0;
+        for (AppointmentSlot slot : slots) {
+            if (add(slot)) indexed++;
+        }
+        return indexed;
+    }
+
+    /**
+     * Indexes a committed appointment as-is, without a conflict check. Used for rows that are
+     * already in the database (startup, bulk import), where an overlap has to be recorded, not refused.
+     */
+    public boolean add(AppointmentSlot slot) {
+        Integer start;
+        try {
+            start = startMinute(slot.time);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (slot.vetKey == null || slot.date == null || start == null) return false;
+        DayKey key = new DayKey(slot.vetKey, slot.date);
+        Booking booking = new Booking(key, start, sequence.incrementAndGet());
+        booking.appointmentId = slot.id;
+        DaySchedule day = days.computeIfAbsent(key, k -> new DaySchedule());
+        synchronized (day) {
+            day.byStart.put(sortKey(start, booking.seq), booking);
+        }
+        Booking previous = byAppointment.put(slot.id, booking);
+        if (previous != null) release(previous);
+        return true;
+    }
+
+    public int getSlotMinutes() { return slotMinutes; }
+
+    // Bookings starting in (start - slotMinutes, start + slotMinutes), i.e. the ones a slot at start would overlap
+    private NavigableMap<Long, Booking> overlapping(DaySchedule day, int start) {
+        return day.byStart.subMap(sortKey(start - slotMinutes + 1, 0), true, sortKey(start + slotMinutes, 0), false);
+    }
+
+    private static long sortKey(int startMinute, long seq) {
+        return ((long) startMinute << 40) | seq;
+    }
+
+    private static String format(int minuteOfDay) {
+        return LocalTime.ofSecondOfDay((long) Math.floorMod(minuteOfDay, 24 * 60) * 60).format(SLOT_FORMAT);
+    }
+}
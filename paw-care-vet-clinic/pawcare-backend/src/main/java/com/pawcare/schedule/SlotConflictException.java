@@ -0,0 +1,10 @@
+package com.pawcare.schedule;
+
+/** Thrown when a booking would overlap another appointment of the same vet. */
+public class SlotConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SlotConflictException(String message) {
+        super(message);
+    }
+}
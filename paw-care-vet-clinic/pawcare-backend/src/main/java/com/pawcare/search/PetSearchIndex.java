@@ -0,0 +1,470 @@
+package com.pawcare.search;
+
+import com.pawcare.dto.PetSearchHit;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over pet name, owner, breed and microchip, so the front desk can find a
+ * patient without a LIKE '%x%' scan of the pets table.
+ *
+ * Field values are folded (lowercase, accents dropped) and split into alphanumeric tokens; a
+ * microchip also gets its tokens joined, so "1234-5678" and "12345678" find the same pet. Each
+ * distinct token keeps a sorted postings array of (slot, field, first-token) entries, and a sorted
+ * map over the tokens turns a query term into the range of tokens it is a prefix of.
+ *
+ * Every query term has to match some token of the pet. Terms are applied rarest first: the first
+ * one's postings give the candidates, later ones either walk their own postings or, when only a
+ * few candidates are left, check those pets' tokens directly. A term scores the pet's best token:
+ * the field's weight, doubled for a whole-token match, plus one when the token starts the field.
+ * Scores add up over terms; ties go to the pet indexed first.
+ *
+ * Slots are handed out in insertion order and not reused, which keeps appends to the postings
+ * sorted; a rebuild compacts them.
+ */
+@Component
+public class PetSearchIndex {
+
+    private static final int NAME = 0, OWNER = 1, BREED = 2, MICROCHIP = 3;
+    // A microchip match is nearly unambiguous, a breed match barely narrows things down
+    private static final int[] WEIGHT = {6, 4, 2, 8};
+    private static final int MAX_TERMS = 8;
+    private static final int CODE_BITS = 3;   // field << 1 | first
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /** One page of hits plus the number of pets matching the query. */
+    public record Page(List<PetSearchHit> hits, int total) {}
+
+    /** An indexed pet; tokens[i] is the canonical instance held by its Postings, codes[i] its field and first flag. */
+    private record Doc(PetSearchHit pet, String[] tokens, byte[] codes) {}
+
+    /** Postings of one token: slot << CODE_BITS | code, ascending. */
+    private static final class Postings {
+        final String token;
+        int[] entries = new int[2];
+        int size;
+
+        Postings(String token) { this.token = token; }
+
+        void add(int entry) {
+            if (size == 0 || entries[size - 1] < entry) {
+                if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+                entries[size++] = entry;
+                return;
+            }
+            int i = Arrays.binarySearch(entries, 0, size, entry);
+            if (i >= 0) return;
+            i = -i - 1;
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            System.arraycopy(entries, i, entries, i + 1, size - i);
+            entries[i] = entry;
+            size++;
+        }
+
+        void remove(int entry) {
+            int i = Arrays.binarySearch(entries, 0, size, entry);
+            if (i < 0) return;
+            System.arraycopy(entries, i + 1, entries, i, size - i - 1);
+            size--;
+        }
+    }
+
+    /** Per-query working arrays indexed by slot, pooled so a search allocates nothing proportional to the index. */
+    private static final class Scratch {
+        byte[] stage = new byte[0];   // terms matched so far; 0 for pets not (yet) a candidate
+        int[] best = new int[0];      // best token score for the current term
+        int[] score = new int[0];     // sum over the terms already applied
+        int[] touched = new int[1024];
+        int touchedSize;
+
+        void ensure(int slots) {
+            if (stage.length >= slots) return;
+            int n = Math.max(slots, stage.length + stage.length / 2);
+            stage = new byte[n];
+            best = new int[n];
+            score = new int[n];
+        }
+
+        void touch(int slot) {
+            if (touchedSize == touched.length) touched = Arrays.copyOf(touched, touchedSize * 2);
+            touched[touchedSize++] = slot;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedSize; i++) stage[touched[i]] = 0;
+            touchedSize = 0;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> byPrefix = new TreeMap<>();
+    private final Map<String, Postings> byToken = new HashMap<>();
+    private final Map<Long, Integer> slotOf = new HashMap<>();
+    private final Queue<Scratch> scratch = new ConcurrentLinkedQueue<>();
+    private Doc[] docs = new Doc[1024];
+    private int nextSlot;
+    private boolean bulk;   // rebuilding: byPrefix is filled at the end
+
+    /** Replaces the whole index; used at startup. */
+    public int rebuild(Collection<PetSearchHit> pets) {
+        lock.writeLock().lock();
+        try {
+            byPrefix.clear();
+            byToken.clear();
+            slotOf.clear();
+            docs = new Doc[Math.max(1024, pets.size() + pets.size() / 4)];
+            nextSlot = 0;
+            bulk = true;
+            try {
+                for (PetSearchHit pet : pets) {
+                    if (pet.id != null) putLocked(pet);
+                }
+            } finally {
+                bulk = false;
+            }
+            // Inserting in key order keeps the tree walks cache-friendly; far cheaper than hash order
+            String[] tokens = byToken.keySet().toArray(new String[0]);
+            Arrays.sort(tokens);
+            for (String token : tokens) byPrefix.put(token, byToken.get(token));
+            return slotOf.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Indexes a committed pet, replacing what was indexed for its id before. */
+    public void put(PetSearchHit pet) {
+        if (pet.id == null) return;
+        lock.writeLock().lock();
+        try {
+            putLocked(pet);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotOf.remove(id);
+            if (slot == null) return;
+            Doc doc = docs[slot];
+            for (int i = 0; i < doc.tokens().length; i++) unlink(doc.tokens()[i], entry(slot, doc.codes()[i]));
+            docs[slot] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Hits offset..offset+limit-1 for query q, best first. A blank query matches nothing. */
+    public Page search(String q, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokens(q)));
+        if (terms.isEmpty() || limit <= 0) return new Page(List.of(), 0);
+        if (terms.size() > MAX_TERMS) terms = terms.subList(0, MAX_TERMS);
+
+        lock.readLock().lock();
+        Scratch s = borrow();
+        try {
+            int n = terms.size();
+            String[] term = new String[n];
+            List<Collection<Postings>> range = rangesRarestFirst(terms, term);
+            if (range == null) return new Page(List.of(), 0);
+            for (int k = 0; k < n; k++) {
+                if (k > 0 && (long) s.touchedSize * 8 < count(range.get(k))) {
+                    matchDocs(s, term[k], k);
+                } else {
+                    matchPostings(s, term[k], range.get(k), k);
+                }
+            }
+
+            TopK top = new TopK((int) Math.min((long) offset + limit, s.touchedSize));
+            int total = 0;
+            for (int i = 0; i < s.touchedSize; i++) {
+                int slot = s.touched[i];
+                if (s.stage[slot] != n) continue;
+                total++;
+                top.offer(((long) s.score[slot] << 32) | (Integer.MAX_VALUE - slot));
+            }
+
+            long[] ranked = top.sortedDescending();
+            List<PetSearchHit> hits = new ArrayList<>(Math.max(0, Math.min(limit, ranked.length - offset)));
+            for (int i = offset; i < ranked.length; i++) {
+                hits.add(docs[Integer.MAX_VALUE - (int) ranked[i]].pet().scored((int) (ranked[i] >>> 32)));
+            }
+            return new Page(hits, total);
+        } finally {
+            s.reset();
+            scratch.add(s);
+            lock.readLock().unlock();
+        }
+    }
+
+    /* --------- matching --------- */
+
+    // Token ranges for each term, fewest postings first, with the terms put in the same order;
+    // null when some term matches nothing
+    private List<Collection<Postings>> rangesRarestFirst(List<String> terms, String[] ordered) {
+        int n = terms.size();
+        List<Collection<Postings>> ranges = new ArrayList<>(n);
+        long[] counts = new long[n];
+        Integer[] order = new Integer[n];
+        for (int k = 0; k < n; k++) {
+            String term = terms.get(k);
+            Collection<Postings> range = byPrefix.subMap(term, true, term + Character.MAX_VALUE, false).values();
+            ranges.add(range);
+            counts[k] = count(range);
+            if (counts[k] == 0) return null;
+            order[k] = k;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(counts[a], counts[b]));
+        List<Collection<Postings>> sorted = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            sorted.add(ranges.get(order[k]));
+            ordered[k] = terms.get(order[k]);
+        }
+        return sorted;
+    }
+
+    // Candidates still in play after term k-1 that have a token in this term's range move on to stage k+1
+    private static void matchPostings(Scratch s, String term, Collection<Postings> range, int k) {
+        for (Postings p : range) {
+            boolean exact = p.token.length() == term.length();
+            int[] entries = p.entries;
+            for (int i = 0; i < p.size; i++) {
+                int e = entries[i];
+                int slot = e >>> CODE_BITS;
+                int st = s.stage[slot];
+                int sc = score(e, exact);
+                if (st == k) {
+                    s.stage[slot] = (byte) (k + 1);
+                    s.best[slot] = sc;
+                    if (k == 0) s.touch(slot);
+                } else if (st == k + 1 && sc > s.best[slot]) {
+                    s.best[slot] = sc;
+                }
+            }
+        }
+        for (int i = 0; i < s.touchedSize; i++) {
+            int slot = s.touched[i];
+            if (s.stage[slot] != k + 1) continue;
+            s.score[slot] = k == 0 ? s.best[slot] : s.score[slot] + s.best[slot];
+        }
+    }
+
+    // Same as matchPostings, for when checking the remaining candidates' own tokens is cheaper
+    private void matchDocs(Scratch s, String term, int k) {
+        for (int i = 0; i < s.touchedSize; i++) {
+            int slot = s.touched[i];
+            if (s.stage[slot] != k) continue;
+            Doc doc = docs[slot];
+            int best = 0;
+            for (int t = 0; t < doc.tokens().length; t++) {
+                String token = doc.tokens()[t];
+                if (!token.startsWith(term)) continue;
+                best = Math.max(best, score(doc.codes()[t], token.length() == term.length()));
+            }
+            if (best == 0) continue;
+            s.stage[slot] = (byte) (k + 1);
+            s.score[slot] += best;
+        }
+    }
+
+    private static int score(int code, boolean exact) {
+        int field = (code >> 1) & 3;
+        return WEIGHT[field] * (exact ? 2 : 1) + (code & 1);
+    }
+
+    private static long count(Collection<Postings> range) {
+        long n = 0;
+        for (Postings p : range) n += p.size;
+        return n;
+    }
+
+    private Scratch borrow() {
+        Scratch s = scratch.poll();
+        if (s == null) s = new Scratch();
+        s.ensure(nextSlot);
+        return s;
+    }
+
+    /* --------- indexing --------- */
+
+    private void putLocked(PetSearchHit pet) {
+        Doc doc = analyze(pet);
+        Integer existing = slotOf.get(pet.id);
+        int slot;
+        Doc old = null;
+        if (existing != null) {
+            slot = existing;
+            old = docs[slot];
+            for (int i = 0; i < old.tokens().length; i++) {
+                if (!contains(doc, old.tokens()[i], old.codes()[i])) unlink(old.tokens()[i], entry(slot, old.codes()[i]));
+            }
+        } else {
+            slot = nextSlot++;
+            if (slot == docs.length) docs = Arrays.copyOf(docs, docs.length * 2);
+            slotOf.put(pet.id, slot);
+        }
+        for (int i = 0; i < doc.tokens().length; i++) {
+            String token = doc.tokens()[i];
+            Postings p = byToken.get(token);
+            if (p == null) {
+                p = new Postings(token);
+                byToken.put(token, p);
+                if (!bulk) byPrefix.put(token, p);
+            }
+            if (old == null || !contains(old, token, doc.codes()[i])) p.add(entry(slot, doc.codes()[i]));
+            doc.tokens()[i] = p.token;
+        }
+        docs[slot] = doc;
+    }
+
+    private void unlink(String token, int entry) {
+        Postings p = byToken.get(token);
+        if (p == null) return;
+        p.remove(entry);
+        if (p.size == 0) {
+            byToken.remove(token);
+            byPrefix.remove(token);
+        }
+    }
+
+    private static boolean contains(Doc doc, String token, byte code) {
+        for (int i = 0; i < doc.tokens().length; i++) {
+            if (doc.codes()[i] == code && doc.tokens()[i].equals(token)) return true;
+        }
+        return false;
+    }
+
+    private static int entry(int slot, byte code) {
+        return slot << CODE_BITS | code;
+    }
+
+    // The pet's (token, code) pairs, without repeats
+    private static Doc analyze(PetSearchHit pet) {
+        List<String> tokens = new ArrayList<>(8);
+        List<Integer> codes = new ArrayList<>(8);
+        addField(pet.name, NAME, tokens, codes);
+        addField(pet.owner, OWNER, tokens, codes);
+        addField(pet.breed, BREED, tokens, codes);
+        int chip = tokens.size();
+        addField(pet.microchip, MICROCHIP, tokens, codes);
+        if (tokens.size() - chip > 1) {
+            tokens.add(String.join("", tokens.subList(chip, tokens.size())));
+            codes.add(MICROCHIP << 1);
+        }
+        String[] t = new String[tokens.size()];
+        byte[] c = new byte[tokens.size()];
+        int n = 0;
+        outer:
+        for (int i = 0; i < tokens.size(); i++) {
+            for (int j = 0; j < n; j++) {
+                if (c[j] == codes.get(i) && t[j].equals(tokens.get(i))) continue outer;
+            }
+            t[n] = tokens.get(i);
+            c[n++] = (byte) (int) codes.get(i);
+        }
+        return new Doc(pet, n == t.length ? t : Arrays.copyOf(t, n), n == c.length ? c : Arrays.copyOf(c, n));
+    }
+
+    private static void addField(String value, int field, List<String> tokens, List<Integer> codes) {
+        boolean first = true;
+        for (String token : tokens(value)) {
+            tokens.add(token);
+            codes.add(field << 1 | (first ? 1 : 0));
+            first = false;
+        }
+    }
+
+    /** Lowercase, accent-free alphanumeric tokens of value, in order. */
+    static List<String> tokens(String value) {
+        if (value == null || value.isEmpty()) return List.of();
+        String folded = fold(value);
+        List<String> out = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                out.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    private static String fold(String value) {
+        boolean ascii = true;
+        for (int i = 0; i < value.length() && ascii; i++) ascii = value.charAt(i) < 0x80;
+        if (!ascii) value = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /** Keeps the k largest keys in a min-heap. */
+    private static final class TopK {
+        private final long[] heap;
+        private int size;
+
+        TopK(int k) {
+            heap = new long[Math.max(1, k)];
+        }
+
+        void offer(long key) {
+            if (size < heap.length) {
+                int i = size++;
+                while (i > 0 && heap[(i - 1) / 2] > key) {
+                    heap[i] = heap[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heap[i] = key;
+            } else if (key > heap[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) break;
+                    if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                    if (heap[child] >= key) break;
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = key;
+            }
+        }
+
+        long[] sortedDescending() {
+            long[] out = Arrays.copyOf(heap, size);
+            Arrays.sort(out);
+            for (int i = 0, j = out.length - 1; i < j; i++, j--) {
+                long tmp = out[i];
+                out[i] = out[j];
+                out[j] = tmp;
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.pawcare.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pawcare.dto.AppointmentSlot;
+import com.pawcare.dto.ImportResult;
+import com.pawcare.dto.PetSearchHit;
+import com.pawcare.entity.*;
+import com.pawcare.repository.*;
+import com.pawcare.schedule.ScheduleIndex;
+import com.pawcare.search.PetSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bulk import of pets, appointments and prescriptions from NDJSON or CSV.
+ *
+ * The body is read line by line and converted row by row, so a bad row is reported and skipped
+ * rather than failing the upload. Valid rows are persisted in chunks of chunkSize, each chunk in its
+ * own transaction with a single summary log entry. The entities use pooled table id generators, so
+ * Hibernate can send each chunk as JDBC batches (hibernate.jdbc.batch_size).
+ */
+@Service
+public class ImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private PawCareService pawCareService;
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private PetSearchIndex petSearchIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${pawcare.import.chunk-size:1000}")
+    private int defaultChunkSize;
+
+    @Value("${pawcare.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // What differs between the importable entities
+    private record Target<T>(String name, String logType, Class<T> type, JpaRepository<T, Long> repository,
+                             Function<T, String> validator, Function<T, Long> petIdOf) {}
+
+    private record Row<T>(long line, T entity) {}
+
+    /** The import target for a path segment, or null when the entity cannot be imported. */
+    private Target<?> target(String entity) {
+        switch (entity) {
+            case "pets":
+                return new Target<>("pets", "PET_IMPORTED", Pet.class, petRepository, this::preparePet, p -> null);
+            case "appointments":
+                return new Target<>("appointments", "APPT_IMPORTED", Appointment.class, appointmentRepository,
+                        this::prepareAppointment, Appointment::getPetId);
+            case "prescriptions":
+                return new Target<>("prescriptions", "RX_IMPORTED", Prescription.class, prescriptionRepository,
+                        this::preparePrescription, Prescription::getPetId);
+            default:
+                return null;
+        }
+    }
+
+    public boolean supports(String entity) {
+        return target(entity) != null;
+    }
+
+    public ImportResult importRows(String entity, Format format, InputStream body, Integer chunkSize) throws IOException {
+        Target<?> target = target(entity);
+        if (target == null) throw new IllegalArgumentException("Cannot import " + entity);
+        int size = chunkSize == null ? defaultChunkSize : chunkSize;
+        if (size < 1 || size > 10_000) throw new IllegalArgumentException("chunkSize must be between 1 and 10000");
+        return run(target, format, body, size);
+    }
+
+    private <T> ImportResult run(Target<T> target, Format format, InputStream body, int chunkSize) throws IOException {
+        ImportResult result = new ImportResult(target.name());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<Row<T>> chunk = new ArrayList<>(chunkSize);
+        String[] header = null;
+        long lineNo = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            if (format == Format.CSV && header == null) {
+                header = splitCsv(stripBom(line)).toArray(new String[0]);
+                for (int i = 0; i < header.length; i++) header[i] = header[i].trim();
+                continue;
+            }
+            result.received++;
+            try {
+                JsonNode node = format == Format.CSV ? csvRow(header, line) : objectMapper.readTree(stripBom(line));
+                if (!node.isObject()) throw new IllegalArgumentException("Row is not a JSON object");
+                T entity = objectMapper.treeToValue(node, target.type());
+                String problem = target.validator().apply(entity);
+                if (problem != null) throw new IllegalArgumentException(problem);
+                chunk.add(new Row<>(lineNo, entity));
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                fail(result, lineNo, e instanceof JsonProcessingException jpe ? jpe.getOriginalMessage() : e.getMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                commitChunk(target, chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) commitChunk(target, chunk, result);
+        return result;
+    }
+
+    private <T> void commitChunk(Target<T> target, List<Row<T>> chunk, ImportResult result) {
+        List<Row<T>> rows = dropUnknownPets(target, chunk, result);
+        if (rows.isEmpty()) return;
+        long first = rows.get(0).line();
+        long last = rows.get(rows.size() - 1).line();
+        List<T> entities = rows.stream().map(Row::entity).toList();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                target.repository().saveAll(entities);
+                pawCareService.recordImportChunk(target.type(), target.logType(),
+                        "Imported " + entities.size() + " " + target.name() + " (lines " + first + "-" + last + ")", entities);
+                // Open-in-view keeps one EntityManager for the whole upload; without this every chunk's
+                // rows would stay managed and be dirty-checked again on each later flush
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (Row<T> row : rows) fail(result, row.line(), "Chunk rolled back: " + cause);
+            return;
+        }
+        result.imported += rows.size();
+        result.chunks++;
+        if (target.type() == Appointment.class) {
+            for (T entity : entities) {
+                Appointment a = (Appointment) entity;
+                scheduleIndex.add(new AppointmentSlot(a.getId(), a.getVetKey(), a.getDate(), a.getTime()));
+            }
+        } else if (target.type() == Pet.class) {
+            for (T entity : entities) petSearchIndex.put(PetSearchHit.of((Pet) entity));
+        }
+    }
+
+    // One IN query per chunk, so a dangling pet id costs that row rather than the whole chunk
+    private <T> List<Row<T>> dropUnknownPets(Target<T> target, List<Row<T>> chunk, ImportResult result) {
+        Set<Long> petIds = new HashSet<>();
+        for (Row<T> row : chunk) {
+            Long petId = target.petIdOf().apply(row.entity());
+            if (petId != null) petIds.add(petId);
+        }
+        if (petIds.isEmpty()) return chunk;
+        Set<Long> known = new HashSet<>(petRepository.findExistingIds(petIds));
+        List<Row<T>> kept = new ArrayList<>(chunk.size());
+        for (Row<T> row : chunk) {
+            Long petId = target.petIdOf().apply(row.entity());
+            if (petId == null || known.contains(petId)) {
+                kept.add(row);
+            } else {
+                fail(result, row.line(), "Unknown petId " + petId);
+            }
+        }
+        return kept;
+    }
+
+    private void fail(ImportResult result, long line, String message) {
+        result.failed++;
+        if (result.errors.size() < maxReportedErrors) {
+            result.errors.add(new ImportResult.RowError(line, message));
+        } else {
+            result.errorsTruncated = true;
+        }
+    }
+
+    // Row preparation: ids and versions come from this database, never from the file
+
+    private String preparePet(Pet pet) {
+        pet.setId(null);
+        pet.setVersion(0);
+        pet.setProcedures(new ArrayList<>());
+        if (pet.getName() == null || pet.getName().isBlank()) return "name is required";
+        return null;
+    }
+
+    private String prepareAppointment(Appointment appointment) {
+        appointment.setId(null);
+        appointment.setVersion(0);
+        if (appointment.getStatus() == null) appointment.setStatus(AppointmentStatus.PENDING);
+        ScheduleIndex.startMinute(appointment.getTime());
+        return null;
+    }
+
+    private String preparePrescription(Prescription prescription) {
+        prescription.setId(null);
+        prescription.setVersion(0);
+        if (prescription.getDrug() == null || prescription.getDrug().isBlank()) return "drug is required";
+        return null;
+    }
+
+    // CSV: one record per line, RFC 4180 quoting; blank cells become null
+
+    private ObjectNode csvRow(String[] header, String line) {
+        List<String> cells = splitCsv(line);
+        if (cells.size() > header.length) {
+            throw new IllegalArgumentException("Expected " + header.length + " columns, found " + cells.size());
+        }
+        ObjectNode node = objectMapper.createObjectNode();
+        for (int i = 0; i < cells.size(); i++) {
+            String cell = cells.get(i);
+            if (header[i].isEmpty()) continue;
+            if (cell.isEmpty()) node.putNull(header[i]);
+            else node.put(header[i], cell);
+        }
+        return node;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"' && cell.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("Unterminated quoted field");
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private static String stripBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+}
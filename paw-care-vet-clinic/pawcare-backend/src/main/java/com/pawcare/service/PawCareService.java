@@ -1,20 +1,87 @@
 package com.pawcare.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pawcare.audit.AuditSink;
+import com.pawcare.cache.EntityCache;
+import com.pawcare.dto.AppointmentRow;
+import com.pawcare.dto.PetSearchHit;
+import com.pawcare.dto.PetSummary;
+import com.pawcare.dto.PrescriptionRow;
+import com.pawcare.dto.ReportSummary;
 import com.pawcare.entity.*;
+import com.pawcare.events.ChangeFeed;
+import com.pawcare.metrics.OperationLogMetrics;
 import com.pawcare.repository.*;
+import com.pawcare.schedule.ScheduleIndex;
+import com.pawcare.search.PetSearchIndex;
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.SingularAttribute;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class PawCareService {
 
+    // daily_stats counters. PET_CREATED counts log entries. APPT_DONE and RX_DISPENSED count rows by
+    // completion day, so they follow those rows through transitions, edits, deletes and imports.
+    private static final Set<String> LOGGED_COUNTERS = Set.of("PET_CREATED");
+
+    // Columns a merge patch may touch. Ids, relations and workflow fields (status, dispensed)
+    // are left to their dedicated endpoints.
+    private static final Set<String> PET_PATCHABLE = Set.of(
+            "name", "species", "breed", "gender", "age", "microchip", "owner", "address", "federation", "photo");
+    private static final Set<String> APPOINTMENT_PATCHABLE = Set.of(
+            "petId", "owner", "code", "date", "time", "vet");
+    private static final Set<String> PRESCRIPTION_PATCHABLE = Set.of(
+            "petId", "pet", "owner", "drug", "dosage", "directions", "prescriber", "date");
+    private static final Set<String> USER_PATCHABLE = Set.of("name", "role");
+
+    // Pet columns held by the search index; a patch touching one re-indexes the pet
+    private static final Set<String> SEARCHABLE = Set.of("name", "species", "breed", "owner", "microchip");
+
+    // Per-table change counters behind the collection ETags. The epoch keeps tags from a previous
+    // run from matching after a restart.
+    private static final String GENERATION_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
     @Autowired
     private PetRepository petRepository;
 
@@ -30,34 +97,129 @@ public class PawCareService {
     @Autowired
     private OperationLogRepository operationLogRepository;
 
+    @Autowired
+    private DailyStatRepository dailyStatRepository;
+
+    @Autowired
+    private AuditSink auditSink;
+
+    @Autowired
+    private EntityCache<Pet> petCache;
+
+    @Autowired
+    private EntityCache<User> userCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private PetSearchIndex petSearchIndex;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private OperationLogMetrics operationLogMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // Pet operations
     public List<Pet> getAllPets() {
         return petRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<PetSummary> getPetSummariesAfter(long afterId, int limit) {
+        return petRepository.findSummariesAfter(afterId, Limit.of(limit));
+    }
+
+    // Two statements per page: the pets, then all of their procedures
+    @Transactional(readOnly = true)
+    public List<Pet> getPetsWithProceduresAfter(long afterId, int limit) {
+        List<Pet> pets = petRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+        if (!pets.isEmpty()) {
+            petRepository.fetchProcedures(pets.stream().map(Pet::getId).toList());
+        }
+        return pets;
+    }
+
+    // No transaction around the lookup, so a cache hit never takes a pooled connection; only a miss
+    // opens one. The cached pet is detached (procedures cascade), since every later reader shares it.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<Pet> getPetWithProcedures(Long id) {
+        return petCache.get(id, key -> readOnly(() -> petRepository.findWithProceduresById(key).map(this::detached)));
+    }
+
+    public long countPets() {
+        return petRepository.count();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<Pet> getPetById(Long id) {
-        return petRepository.findById(id);
+        return getPetWithProcedures(id);
     }
 
     public Pet savePet(Pet pet) {
         Pet savedPet = petRepository.save(pet);
-        logOperation("PET_CREATED", "Added pet " + savedPet.getName(), savedPet.getId());
+        changed(Pet.class);
+        indexForSearch(savedPet);
+        logOperation("PET_CREATED", "Added pet " + savedPet.getName(), savedPet.getId(), savedPet.getId(), savedPet::getVersion);
         return savedPet;
     }
 
     public Pet updatePet(Long id, Pet pet) {
         pet.setId(id);
         Pet updatedPet = petRepository.save(pet);
-        logOperation("PET_UPDATED", "Updated pet " + updatedPet.getName(), updatedPet.getId());
+        evict(petCache, id);
+        changed(Pet.class);
+        indexForSearch(updatedPet);
+        logOperation("PET_UPDATED", "Updated pet " + updatedPet.getName(), updatedPet.getId(), updatedPet.getId(), updatedPet::getVersion);
         return updatedPet;
     }
 
-    public void deletePet(Long id) {
-        Optional<Pet> pet = petRepository.findById(id);
-        if (pet.isPresent()) {
-            logOperation("PET_DELETED", "Deleted pet " + pet.get().getName(), id);
-            petRepository.deleteById(id);
+    public boolean patchPet(Long id, JsonNode patch, Long expectedVersion) {
+        if (!applyPatch(Pet.class, id, patch, expectedVersion, PET_PATCHABLE, null)) return false;
+        evict(petCache, id);
+        changed(Pet.class);
+        if (SEARCHABLE.stream().anyMatch(patch::has)) {
+            petRepository.findById(id).ifPresent(this::indexForSearch);
         }
+        logOperation("PET_UPDATED", "Updated pet #" + id, id, id);
+        return true;
+    }
+
+    public boolean petExists(Long id) {
+        return petRepository.existsById(id);
+    }
+
+    public boolean updatePetPhoto(Long id, String photoUrl) {
+        if (petRepository.updatePhoto(id, photoUrl) == 0) return false;
+        evict(petCache, id);
+        changed(Pet.class);
+        // Search hits carry the thumbnail, so the indexed row is replaced too
+        petRepository.findSearchRow(id).ifPresent(row -> afterCommit(() -> petSearchIndex.put(row)));
+        logOperation("PET_UPDATED", "Updated photo for pet #" + id, id, id);
+        return true;
+    }
+
+    // One lookup serves the existence check, the version check and the delete. False when no pet has that id.
+    public boolean deletePet(Long id, Long expectedVersion) {
+        Optional<Pet> pet = petRepository.findById(id);
+        if (pet.isEmpty()) return false;
+        checkVersion(expectedVersion, pet.get().getVersion());
+        logOperation("PET_DELETED", "Deleted pet " + pet.get().getName(), id, id);
+        petRepository.delete(pet.get());
+        evict(petCache, id);
+        changed(Pet.class);
+        afterCommit(() -> petSearchIndex.remove(id));
+        return true;
     }
 
     public Pet addProcedureToPet(Long petId, Procedure procedure) {
@@ -66,6 +228,11 @@ public class PawCareService {
             Pet pet = petOpt.get();
             procedure.setPet(pet);
             pet.getProcedures().add(procedure);
+            // The procedure list is part of the pet's representation, so it moves the pet's version too
+            entityManager.lock(pet, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            evict(petCache, petId);
+            changed(Pet.class);
+            publishChange("PET_UPDATED", petId, pet::getVersion);
             return petRepository.save(pet);
         }
         throw new RuntimeException("Pet not found with id: " + petId);
@@ -76,45 +243,182 @@ public class PawCareService {
         return appointmentRepository.findAll();
     }
 
+    // Selects the list columns straight into rows; same filter and keyset order as before
+    @Transactional(readOnly = true)
+    public List<AppointmentRow> findAppointments(String vet, boolean unassigned, String status,
+                                                 LocalDate from, LocalDate to, long afterId, int limit) {
+        Specification<Appointment> spec = appointmentFilter(vet, unassigned, status, from, to)
+                .and(AppointmentRepository.idAfter(afterId));
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AppointmentRow> query = cb.createQuery(AppointmentRow.class);
+        Root<Appointment> a = query.from(Appointment.class);
+        query.select(cb.construct(AppointmentRow.class, a.get("id"), a.get("petId"), a.get("owner"), a.get("code"),
+                        a.get("date"), a.get("time"), a.get("vet"), a.get("status"), a.get("completedAt"), a.get("version")))
+                .where(spec.toPredicate(a, query, cb))
+                .orderBy(cb.asc(a.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    public long countAppointments(String vet, boolean unassigned, String status, LocalDate from, LocalDate to) {
+        return appointmentRepository.count(appointmentFilter(vet, unassigned, status, from, to));
+    }
+
+    private Specification<Appointment> appointmentFilter(String vet, boolean unassigned, String status,
+                                                         LocalDate from, LocalDate to) {
+        Specification<Appointment> spec = Specification.where(null);
+        String vetKey = Appointment.vetKeyOf(vet);
+        if (vetKey != null) spec = spec.and(AppointmentRepository.vetKeyIs(vetKey));
+        if (unassigned) spec = spec.and(AppointmentRepository.unassigned());
+        if (status != null && !status.isBlank()) {
+            // An unknown status matches nothing, as it did when the column held free text
+            AppointmentStatus code = AppointmentStatus.parse(status);
+            spec = spec.and(code != null ? AppointmentRepository.statusIs(code) : AppointmentRepository.none());
+        }
+        if (from != null) spec = spec.and(AppointmentRepository.dateFrom(from));
+        if (to != null) spec = spec.and(AppointmentRepository.dateTo(to));
+        return spec;
+    }
+
     public Optional<Appointment> getAppointmentById(Long id) {
         return appointmentRepository.findById(id);
     }
 
     public Appointment saveAppointment(Appointment appointment) {
-        appointment.setStatus("Pending");
-        Appointment savedAppointment = appointmentRepository.save(appointment);
-        logOperation("APPT_CREATED", "Appointment created for " + savedAppointment.getOwner(), savedAppointment.getPetId());
+        appointment.setStatus(AppointmentStatus.PENDING);
+        ScheduleIndex.Booking booking = scheduleIndex.reserve(null, appointment.getVet(), appointment.getDate(), appointment.getTime());
+        Appointment savedAppointment;
+        try {
+            savedAppointment = appointmentRepository.save(appointment);
+        } catch (RuntimeException e) {
+            scheduleIndex.release(booking);
+            throw e;
+        }
+        settleBooking(savedAppointment.getId(), booking);
+        changed(Appointment.class);
+        logOperation("APPT_CREATED", "Appointment created for " + savedAppointment.getOwner(), savedAppointment.getPetId(),
+                savedAppointment.getId(), savedAppointment::getVersion);
         return savedAppointment;
     }
 
     public Appointment updateAppointment(Long id, Appointment appointment) {
         appointment.setId(id);
-        return appointmentRepository.save(appointment);
+        Optional<Appointment> current = appointmentRepository.findById(id);
+        current.ifPresent(c -> appointment.setVersion(c.getVersion()));
+        LocalDate doneBefore = current.map(PawCareService::doneDay).orElse(null);
+        ScheduleIndex.Booking booking = scheduleIndex.reserve(id, appointment.getVet(), appointment.getDate(), appointment.getTime());
+        Appointment updatedAppointment;
+        try {
+            updatedAppointment = appointmentRepository.save(appointment);
+        } catch (RuntimeException e) {
+            scheduleIndex.release(booking);
+            throw e;
+        }
+        settleBooking(id, booking);
+        moveRollup("APPT_DONE", doneBefore, doneDay(updatedAppointment));
+        changed(Appointment.class);
+        publishChange("APPT_UPDATED", id, updatedAppointment::getVersion);
+        return updatedAppointment;
+    }
+
+    public boolean patchAppointment(Long id, JsonNode patch, Long expectedVersion) {
+        boolean reschedules = patch != null && (patch.has("vet") || patch.has("date") || patch.has("time"));
+        ScheduleIndex.Booking booking = reschedules ? reserveForPatch(id, patch) : null;
+        boolean found;
+        try {
+            found = applyPatch(Appointment.class, id, patch, expectedVersion, APPOINTMENT_PATCHABLE, (update, root) -> {
+                // Bulk updates skip @PreUpdate, so keep the normalized vet column in step here
+                if (patch.has("vet")) {
+                    update.set(root.<String>get("vetKey"), Appointment.vetKeyOf(patch.get("vet").asText(null)));
+                }
+            });
+        } catch (RuntimeException e) {
+            scheduleIndex.release(booking);
+            throw e;
+        }
+        if (!found) {
+            scheduleIndex.release(booking);
+            return false;
+        }
+        if (reschedules) settleBooking(id, booking);
+        changed(Appointment.class);
+        publishChange("APPT_UPDATED", id, null);
+        return true;
+    }
+
+    // Works out where a patch moves the appointment, from the index when it already has the slot
+    private ScheduleIndex.Booking reserveForPatch(Long id, JsonNode patch) {
+        String vet;
+        LocalDate date;
+        String time;
+        ScheduleIndex.Booking current = scheduleIndex.bookingOf(id);
+        if (current != null) {
+            vet = current.getVetKey();
+            date = current.getDate();
+            time = current.getTime();
+        } else {
+            Optional<Appointment> row = appointmentRepository.findById(id);
+            if (row.isEmpty()) return null;
+            vet = row.get().getVet();
+            date = row.get().getDate();
+            time = row.get().getTime();
+        }
+        if (patch.has("vet")) vet = patch.get("vet").asText(null);
+        if (patch.has("date")) date = patch.get("date").isNull() ? null : LocalDate.parse(patch.get("date").asText());
+        if (patch.has("time")) time = patch.get("time").asText(null);
+        return scheduleIndex.reserve(id, vet, date, time);
+    }
+
+    @Transactional(readOnly = true)
+    public int rebuildPetSearch() {
+        return petSearchIndex.rebuild(petRepository.findSearchRows());
+    }
+
+    // The row as written now, indexed once it is committed
+    private void indexForSearch(Pet pet) {
+        PetSearchHit row = PetSearchHit.of(pet);
+        afterCommit(() -> petSearchIndex.put(row));
+    }
+
+    @Transactional(readOnly = true)
+    public int rebuildSchedule() {
+        return scheduleIndex.rebuild(appointmentRepository.findScheduleSlots());
     }
 
     public void deleteAppointment(Long id) {
-        logOperation("APPT_DELETED", "Removed appointment #" + id, null);
+        appointmentRepository.findById(id).ifPresent(a -> moveRollup("APPT_DONE", doneDay(a), null));
+        logOperation("APPT_DELETED", "Removed appointment #" + id, null, id);
+        settleBooking(id, null);
+        changed(Appointment.class);
         appointmentRepository.deleteById(id);
     }
 
-    public Appointment approveAppointment(Long id) {
+    public Appointment approveAppointment(Long id, Long expectedVersion) {
         Optional<Appointment> appointmentOpt = appointmentRepository.findById(id);
         if (appointmentOpt.isPresent()) {
             Appointment appointment = appointmentOpt.get();
-            appointment.setStatus("Approved by Vet");
-            logOperation("APPT_APPROVED", "Appointment approved for " + appointment.getOwner(), appointment.getPetId());
+            checkVersion(expectedVersion, appointment.getVersion());
+            changed(Appointment.class);
+            appointment.setStatus(AppointmentStatus.APPROVED);
+            logOperation("APPT_APPROVED", "Appointment approved for " + appointment.getOwner(), appointment.getPetId(),
+                    id, appointment::getVersion);
             return appointmentRepository.save(appointment);
         }
         throw new RuntimeException("Appointment not found with id: " + id);
     }
 
-    public Appointment markAppointmentDone(Long id) {
+    public Appointment markAppointmentDone(Long id, Long expectedVersion) {
         Optional<Appointment> appointmentOpt = appointmentRepository.findById(id);
         if (appointmentOpt.isPresent()) {
             Appointment appointment = appointmentOpt.get();
-            appointment.setStatus("Done");
+            checkVersion(expectedVersion, appointment.getVersion());
+            // A repeated request must not log or count the completion again
+            if (appointment.getStatus() == AppointmentStatus.DONE) return appointment;
+            changed(Appointment.class);
+            appointment.setStatus(AppointmentStatus.DONE);
             appointment.setCompletedAt(LocalDate.now());
-            logOperation("APPT_DONE", "Appointment done for " + appointment.getOwner(), appointment.getPetId());
+            moveRollup("APPT_DONE", null, appointment.getCompletedAt());
+            logOperation("APPT_DONE", "Appointment done for " + appointment.getOwner(), appointment.getPetId(),
+                    id, appointment::getVersion);
             return appointmentRepository.save(appointment);
         }
         throw new RuntimeException("Appointment not found with id: " + id);
@@ -125,32 +429,79 @@ public class PawCareService {
         return prescriptionRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<PrescriptionRow> getPrescriptionsAfter(long afterId, int limit) {
+        return prescriptionRepository.findRowsAfter(afterId, Limit.of(limit));
+    }
+
+    public long countPrescriptions() {
+        return prescriptionRepository.count();
+    }
+
+    // Pharmacy work queue: undispensed prescriptions, oldest first, continuing after (afterDate, afterId).
+    // Served by an index, so saves, dispenses, edits and deletes show up without any bookkeeping here.
+    @Transactional(readOnly = true)
+    public List<PrescriptionRow> getPharmacyQueueAfter(LocalDate afterDate, long afterId, int limit) {
+        return afterDate == null
+                ? prescriptionRepository.findQueueAfterUndated(afterId, Limit.of(limit))
+                : prescriptionRepository.findQueueAfter(afterDate, afterId, Limit.of(limit));
+    }
+
+    public long countPharmacyQueue() {
+        return prescriptionRepository.countByDispensedFalse();
+    }
+
     public Optional<Prescription> getPrescriptionById(Long id) {
         return prescriptionRepository.findById(id);
     }
 
     public Prescription savePrescription(Prescription prescription) {
         Prescription savedPrescription = prescriptionRepository.save(prescription);
-        logOperation("RX_CREATED", "Rx issued for " + savedPrescription.getPet() + " (" + savedPrescription.getDrug() + ")", savedPrescription.getPetId());
+        changed(Prescription.class);
+        logOperation("RX_CREATED", "Rx issued for " + savedPrescription.getPet() + " (" + savedPrescription.getDrug() + ")", savedPrescription.getPetId(),
+                savedPrescription.getId(), savedPrescription::getVersion);
         return savedPrescription;
     }
 
     public Prescription updatePrescription(Long id, Prescription prescription) {
         prescription.setId(id);
-        return prescriptionRepository.save(prescription);
+        Optional<Prescription> current = prescriptionRepository.findById(id);
+        current.ifPresent(c -> prescription.setVersion(c.getVersion()));
+        LocalDate dispensedBefore = current.map(PawCareService::dispensedDay).orElse(null);
+        changed(Prescription.class);
+        Prescription updatedPrescription = prescriptionRepository.save(prescription);
+        moveRollup("RX_DISPENSED", dispensedBefore, dispensedDay(updatedPrescription));
+        publishChange("RX_UPDATED", id, updatedPrescription::getVersion);
+        return updatedPrescription;
+    }
+
+    public boolean patchPrescription(Long id, JsonNode patch, Long expectedVersion) {
+        changed(Prescription.class);
+        if (!applyPatch(Prescription.class, id, patch, expectedVersion, PRESCRIPTION_PATCHABLE, null)) return false;
+        publishChange("RX_UPDATED", id, null);
+        return true;
     }
 
     public void deletePrescription(Long id) {
+        prescriptionRepository.findById(id).ifPresent(r -> moveRollup("RX_DISPENSED", dispensedDay(r), null));
         prescriptionRepository.deleteById(id);
+        changed(Prescription.class);
+        publishChange("RX_DELETED", id, null);
     }
 
-    public Prescription dispensePrescription(Long id) {
+    public Prescription dispensePrescription(Long id, Long expectedVersion) {
         Optional<Prescription> prescriptionOpt = prescriptionRepository.findById(id);
         if (prescriptionOpt.isPresent()) {
             Prescription prescription = prescriptionOpt.get();
+            checkVersion(expectedVersion, prescription.getVersion());
+            // A repeated request must not log or count the dispense again
+            if (prescription.isDispensed()) return prescription;
+            changed(Prescription.class);
             prescription.setDispensed(true);
             prescription.setDispensedAt(LocalDate.now());
-            logOperation("RX_DISPENSED", "Rx dispensed for " + prescription.getPet(), prescription.getPetId());
+            moveRollup("RX_DISPENSED", null, prescription.getDispensedAt());
+            logOperation("RX_DISPENSED", "Rx dispensed for " + prescription.getPet(), prescription.getPetId(),
+                    id, prescription::getVersion);
             return prescriptionRepository.save(prescription);
         }
         throw new RuntimeException("Prescription not found with id: " + id);
@@ -161,21 +512,33 @@ public class PawCareService {
         return userRepository.findAll();
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        return userCache.get(id, key -> readOnly(() -> userRepository.findById(key).map(this::detached)));
     }
 
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        evict(userCache, savedUser.getId());
+        return savedUser;
     }
 
     public User updateUser(Long id, User user) {
         user.setId(id);
-        return userRepository.save(user);
+        User updatedUser = userRepository.save(user);
+        evict(userCache, id);
+        return updatedUser;
+    }
+
+    public boolean patchUser(Long id, JsonNode patch) {
+        if (!applyPatch(User.class, id, patch, null, USER_PATCHABLE, null)) return false;
+        evict(userCache, id);
+        return true;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        evict(userCache, id);
     }
 
     // Operation log operations
@@ -183,13 +546,251 @@ public class PawCareService {
         return operationLogRepository.findByDateRange(from, to);
     }
 
-    private void logOperation(String type, String message, Long petId) {
+    // Streams matching entries in id order, detaching each one so memory stays flat
+    @Transactional(readOnly = true)
+    public void exportOperationLogs(LocalDate from, LocalDate to, String type, Long petId, long afterId,
+                                    Consumer<OperationLog> sink) {
+        try (Stream<OperationLog> rows = operationLogRepository.streamForExport(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), type, petId, afterId)) {
+            rows.forEach(o -> {
+                sink.accept(o);
+                entityManager.detach(o);
+            });
+        }
+    }
+
+    // Report operations
+    @Transactional(readOnly = true)
+    public ReportSummary buildSummary(String period, LocalDate start, LocalDate end) {
+        ReportSummary s = new ReportSummary();
+        s.period = period;
+        s.from = start.toString();
+        s.to = end.toString();
+
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : dailyStatRepository.sumByCounterBetween(start, end)) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        s.appointmentsDone = counts.getOrDefault("APPT_DONE", 0L).intValue();
+        s.prescriptionsDispensed = counts.getOrDefault("RX_DISPENSED", 0L).intValue();
+        s.petsAdded = counts.getOrDefault("PET_CREATED", 0L).intValue();
+
+        s.events = operationLogRepository.findByDateRange(start, end);
+        return s;
+    }
+
+    // Regenerates daily_stats from operation_logs and the completed rows, e.g. after a crash or a manual data fix
+    public int rebuildDailyStats() {
+        auditSink.flush();
+        dailyStatRepository.clear();
+        return dailyStatRepository.rebuildFromOperationLogs(LOGGED_COUNTERS)
+                + dailyStatRepository.rebuildDoneAppointments()
+                + dailyStatRepository.rebuildDispensedPrescriptions();
+    }
+
+    public boolean dailyStatsMissing() {
+        return dailyStatRepository.count() == 0 && operationLogRepository.count() > 0;
+    }
+
+    // Applies a JSON merge patch (RFC 7396) as one UPDATE of just the named columns, without loading
+    // the row first. Versioned entities get version = version + 1, guarded by expectedVersion when given.
+    // Returns false when no row has that id.
+    private <T> boolean applyPatch(Class<T> type, Long id, JsonNode patch, Long expectedVersion, Set<String> patchable,
+                                   BiConsumer<CriteriaUpdate<T>, Root<T>> extra) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Patch body must be a JSON object");
+        }
+        var entityType = entityManager.getMetamodel().entity(type);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        if (!fields.hasNext()) {
+            return entityManager.find(type, id) != null;
+        }
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (!patchable.contains(name)) {
+                throw new IllegalArgumentException("Field cannot be patched: " + name);
+            }
+            SingularAttribute<? super T, ?> attribute = entityType.getSingularAttribute(name);
+            JsonNode value = field.getValue();
+            if (value.isNull()) {
+                if (!attribute.isOptional() || attribute.getJavaType().isPrimitive() || isNotNullColumn(attribute)) {
+                    throw new IllegalArgumentException("Field cannot be null: " + name);
+                }
+                update.set(root.get(name), (Object) null);
+            } else {
+                update.set(root.get(name), objectMapper.convertValue(value, attribute.getJavaType()));
+            }
+        }
+        if (extra != null) extra.accept(update, root);
+        if (entityType.hasVersionAttribute()) {
+            Path<Long> version = root.get("version");
+            update.set(version, cb.sum(version, 1L));
+            if (expectedVersion != null) {
+                update.where(cb.equal(root.get("id"), id), cb.equal(version, expectedVersion));
+            } else {
+                update.where(cb.equal(root.get("id"), id));
+            }
+        } else {
+            update.where(cb.equal(root.get("id"), id));
+        }
+        if (entityManager.createQuery(update).executeUpdate() > 0) return true;
+        if (expectedVersion != null && entityManager.find(type, id) != null) {
+            throw new OptimisticLockingFailureException(type.getSimpleName() + " " + id + " has changed");
+        }
+        return false;
+    }
+
+    // Bulk imports write one log entry per committed chunk instead of one per row. Rows that arrive
+    // already Done or dispensed are counted with one upsert per completion day.
+    public void recordImportChunk(Class<?> type, String logType, String message, List<?> rows) {
+        logOperation(logType, message, null, null);
+        Map<LocalDate, Long> done = new HashMap<>();
+        Map<LocalDate, Long> dispensed = new HashMap<>();
+        for (Object row : rows) {
+            LocalDate day;
+            if (row instanceof Appointment a && (day = doneDay(a)) != null) done.merge(day, 1L, Long::sum);
+            if (row instanceof Prescription p && (day = dispensedDay(p)) != null) dispensed.merge(day, 1L, Long::sum);
+        }
+        done.forEach((day, n) -> dailyStatRepository.add(day, "APPT_DONE", n));
+        dispensed.forEach((day, n) -> dailyStatRepository.add(day, "RX_DISPENSED", n));
+        changed(type);
+    }
+
+    // The day a row counts under in daily_stats, or null when it does not count
+    private static LocalDate doneDay(Appointment appointment) {
+        return appointment.getStatus() == AppointmentStatus.DONE ? appointment.getCompletedAt() : null;
+    }
+
+    private static LocalDate dispensedDay(Prescription prescription) {
+        return prescription.isDispensed() ? prescription.getDispensedAt() : null;
+    }
+
+    // Moves one row's contribution to a counter from the day it counted under to the day it counts under now
+    private void moveRollup(String counter, LocalDate before, LocalDate after) {
+        if (Objects.equals(before, after)) return;
+        if (before != null) dailyStatRepository.add(before, counter, -1);
+        if (after != null) dailyStatRepository.add(after, counter, 1);
+    }
+
+    // Confirms a slot reservation once the transaction commits and gives it back if it rolls back
+    private void settleBooking(Long appointmentId, ScheduleIndex.Booking booking) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            scheduleIndex.confirm(appointmentId, booking);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    scheduleIndex.confirm(appointmentId, booking);
+                } else {
+                    scheduleIndex.release(booking);
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void checkVersion(Long expectedVersion, long currentVersion) {
+        if (expectedVersion != null && expectedVersion != currentVersion) {
+            throw new OptimisticLockingFailureException("Version " + expectedVersion + " is stale; current is " + currentVersion);
+        }
+    }
+
+    /** Opaque token that changes whenever a row of the given entity type is written through this service. */
+    public String changeGeneration(Class<?> type) {
+        return GENERATION_EPOCH + "-" + generations.computeIfAbsent(type, t -> new AtomicLong()).get();
+    }
+
+    // Bumped once the transaction has finished: bumping earlier would let a reader pair the new
+    // generation with pre-commit rows and keep them cached as current
+    private void changed(Class<?> type) {
+        AtomicLong generation = generations.computeIfAbsent(type, t -> new AtomicLong());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                }
+            });
+        } else {
+            generation.incrementAndGet();
+        }
+    }
+
+    private static boolean isNotNullColumn(Attribute<?, ?> attribute) {
+        if (attribute.getJavaMember() instanceof Field f) {
+            Column column = f.getAnnotation(Column.class);
+            return column != null && !column.nullable();
+        }
+        return false;
+    }
+
+    // Evicts now and again after commit, so a concurrent read cannot re-cache the pre-commit row
+    private <T> T readOnly(Supplier<T> work) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx.execute(status -> work.get());
+    }
+
+    // Cached entities must not stay in the loading request's persistence context, where a later
+    // merge in that request would copy its state onto the shared instance
+    private <E> E detached(E entity) {
+        entityManager.detach(entity);
+        return entity;
+    }
+
+    private static <V> void evict(EntityCache<V> cache, Long id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    private void logOperation(String type, String message, Long petId, Long subjectId) {
+        logOperation(type, message, petId, subjectId, null);
+    }
+
+    // subjectId is the row the operation touched (the appointment for APPT_*, not its pet)
+    private void logOperation(String type, String message, Long petId, Long subjectId, LongSupplier version) {
         OperationLog log = new OperationLog();
         log.setTs(LocalDateTime.now());
         log.setType(type);
         log.setMessage(message);
         log.setPetId(petId);
-        operationLogRepository.save(log);
+        auditSink.record(log);
+        operationLogMetrics.recorded(type);
+        if (LOGGED_COUNTERS.contains(type)) {
+            dailyStatRepository.add(log.getTs().toLocalDate(), type, 1);
+        }
+        publishChange(type, subjectId, version);
+    }
+
+    // Announced on /api/events once committed; the version is read then, after the flush has bumped it
+    private void publishChange(String type, Long id, LongSupplier version) {
+        afterCommit(() -> changeFeed.publish(type, id, version == null ? null : version.getAsLong()));
     }
 }
 
@@ -0,0 +1,263 @@
+package com.pawcare.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-addressed store for pet photos. Files are named by the SHA-256 of
+ * their bytes, so re-uploading the same picture reuses the existing file.
+ * Thumbnails are rendered off the request thread into uploads/thumbs/; images
+ * whose declared size is over the pixel limit, or that ImageIO cannot decode,
+ * get a marker in uploads/thumbs/failed/ instead and are served full size.
+ * Partial writes go to uploads/tmp/, which no /uploads URL reaches, and are
+ * moved into place once complete.
+ */
+@Component
+public class PhotoStorage {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PhotoStorage.class);
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp", "webp");
+    private static final String URL_PREFIX = "/uploads/";
+    private static final String THUMB_DIR = "thumbs";
+    private static final String FAILED_DIR = "failed";
+    private static final String TMP_DIR = "tmp";
+
+    private final Path root;
+    private final Path thumbs;
+    private final Path failed;
+    private final Path tmpDir;
+    private final int thumbSize;
+    private final long maxPixels;
+    private final ThreadPoolExecutor thumbnailer;
+    private final Set<String> rendering = ConcurrentHashMap.newKeySet();
+
+    public PhotoStorage(@Value("${pawcare.upload-dir:uploads}") String uploadDir,
+                        @Value("${pawcare.photo.thumbnail-size:256}") int thumbSize,
+                        @Value("${pawcare.photo.thumbnail-threads:2}") int threads,
+                        @Value("${pawcare.photo.thumbnail-queue:100}") int queue,
+                        @Value("${pawcare.photo.max-pixels:50000000}") long maxPixels) throws IOException {
+        this.root = Path.of((uploadDir == null || uploadDir.isBlank()) ? "uploads" : uploadDir);
+        this.thumbs = root.resolve(THUMB_DIR);
+        this.failed = thumbs.resolve(FAILED_DIR);
+        this.tmpDir = root.resolve(TMP_DIR);
+        Files.createDirectories(failed);
+        Files.createDirectories(tmpDir);
+        // Earlier versions wrote partial files beside the served ones; drop any a crash left there
+        deletePartials(root);
+        deletePartials(thumbs);
+        this.thumbSize = thumbSize;
+        this.maxPixels = maxPixels;
+        // Bounded in threads and backlog; when full the thumbnail is skipped, and queued again the next
+        // time its URL is requested
+        this.thumbnailer = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue), r -> {
+                    Thread t = new Thread(r, "photo-thumbnailer");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.thumbnailer.allowCoreThreadTimeOut(true);
+    }
+
+    /** Stores the upload and returns its public URL, e.g. /uploads/3fa9...e1.jpg */
+    public String store(InputStream in, String originalFilename) throws IOException {
+        MessageDigest sha256 = sha256();
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            try (ReadableByteChannel src = Channels.newChannel(new DigestInputStream(in, sha256));
+                 FileChannel dst = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long pos = 0, n;
+                while ((n = dst.transferFrom(src, pos, 1 << 20)) > 0) pos += n;
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String filename = hash + "." + extensionOf(originalFilename);
+            Path dest = root.resolve(filename);
+            if (Files.exists(dest)) {
+                Files.delete(tmp);
+            } else {
+                try {
+                    Files.move(tmp, dest, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException raced) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            if (isImage(filename)) queueThumbnail(dest, filename);
+            return URL_PREFIX + filename;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Thumbnail URL for a stored photo URL; null when the photo is not an image (.bin uploads). */
+    public static String thumbnailUrl(String photoUrl) {
+        if (photoUrl == null || !photoUrl.startsWith(URL_PREFIX)) return null;
+        String filename = photoUrl.substring(URL_PREFIX.length());
+        return isImage(filename) ? URL_PREFIX + THUMB_DIR + "/" + thumbnailName(filename) : null;
+    }
+
+    /**
+     * For a thumbnail that is not on disk: the name of the photo it was made from, so the caller can
+     * serve that instead, or null when there is no such photo. Queues the render again unless it
+     * already failed for good.
+     */
+    public String photoForMissingThumbnail(String thumbnailName) {
+        if (!thumbnailName.endsWith(".jpg")) return null;
+        String base = thumbnailName.substring(0, thumbnailName.length() - ".jpg".length());
+        for (String ext : IMAGE_EXTENSIONS) {
+            for (String candidate : new String[]{base + "." + ext, base + "." + ext.toUpperCase(Locale.ROOT)}) {
+                Path source = root.resolve(candidate);
+                if (Files.isRegularFile(source)) {
+                    queueThumbnail(source, candidate);
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        thumbnailer.shutdown();
+    }
+
+    private void queueThumbnail(Path source, String filename) {
+        if (Files.exists(thumbnailPath(filename)) || Files.exists(failed.resolve(thumbnailName(filename)))) return;
+        if (!rendering.add(filename)) return;
+        try {
+            thumbnailer.execute(() -> renderThumbnail(source, filename));
+        } catch (RejectedExecutionException e) {
+            rendering.remove(filename);
+            LOG.warn("Thumbnail queue full, skipping {}", filename);
+        }
+    }
+
+    private void renderThumbnail(Path source, String filename) {
+        try {
+            BufferedImage img = decode(source);
+            if (img == null) {
+                markFailed(filename);
+                return;
+            }
+            double scale = Math.min(1.0, (double) thumbSize / Math.max(img.getWidth(), img.getHeight()));
+            int w = Math.max(1, (int) Math.round(img.getWidth() * scale));
+            int h = Math.max(1, (int) Math.round(img.getHeight() * scale));
+            BufferedImage thumb = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = thumb.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                // JPEG has no alpha: transparent areas go on white rather than the buffer's black
+                g.drawImage(img, 0, 0, w, h, Color.WHITE, null);
+            } finally {
+                g.dispose();
+            }
+            Path out = thumbnailPath(filename);
+            Path tmp = Files.createTempFile(tmpDir, "thumb-", ".part");
+            ImageIO.write(thumb, "jpg", tmp.toFile());
+            Files.move(tmp, out, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not render thumbnail for {}", filename, e);
+            markFailed(filename);
+        } finally {
+            rendering.remove(filename);
+        }
+    }
+
+    // Reads the size from the header first and refuses images over maxPixels, so a small file that
+    // declares a huge canvas cannot exhaust the heap; larger images are subsampled while decoding to
+    // about twice the thumbnail size. Null when no ImageIO reader handles the format.
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    LOG.warn("Not rendering a thumbnail for {}: {}x{} is over {} pixels", source.getFileName(), width, height, maxPixels);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (thumbSize * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void markFailed(String filename) {
+        try {
+            Files.write(failed.resolve(thumbnailName(filename)), new byte[0]);
+        } catch (IOException e) {
+            LOG.warn("Could not record the failed thumbnail for {}", filename, e);
+        }
+    }
+
+    private static void deletePartials(Path dir) throws IOException {
+        try (DirectoryStream<Path> partials = Files.newDirectoryStream(dir, "*.part")) {
+            for (Path p : partials) Files.deleteIfExists(p);
+        }
+    }
+
+    private Path thumbnailPath(String filename) {
+        return thumbs.resolve(thumbnailName(filename));
+    }
+
+    private static String thumbnailName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return (dot < 0 ? filename : filename.substring(0, dot)) + ".jpg";
+    }
+
+    private static boolean isImage(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot >= 0 && IMAGE_EXTENSIONS.contains(filename.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static String extensionOf(String originalFilename) {
+        if (originalFilename == null) return "bin";
+        int dot = originalFilename.lastIndexOf('.');
+        String ext = dot < 0 ? "" : originalFilename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return IMAGE_EXTENSIONS.contains(ext) ? ext : "bin";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
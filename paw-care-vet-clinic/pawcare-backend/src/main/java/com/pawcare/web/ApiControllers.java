@@ -1,41 +1,104 @@
 package com.pawcare.web;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pawcare.cache.EntityCache;
+import com.pawcare.dto.AppointmentRow;
+import com.pawcare.dto.PetSearchHit;
+import com.pawcare.dto.PrescriptionRow;
+import com.pawcare.dto.ReportSummary;
+import com.pawcare.schedule.ScheduleIndex;
+import com.pawcare.schedule.SlotConflictException;
+import com.pawcare.search.PetSearchIndex;
 import com.pawcare.entity.*;
 import com.pawcare.service.PawCareService;
-import org.springframework.beans.factory.annotation.Value;
+import com.pawcare.storage.PhotoStorage;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.*;
-import java.nio.file.*;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 @RestController
 @RequestMapping("/api")
 public class ApiControllers {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
     private final PawCareService pawCareService;
-    private final String uploadDir;
+    private final PhotoStorage photoStorage;
+    private final ObjectWriter ndjsonWriter;
+    private final List<EntityCache<?>> caches;
+    private final ScheduleIndex scheduleIndex;
+    private final PetSearchIndex petSearchIndex;
 
     public ApiControllers(
             PawCareService pawCareService,
-            @Value("${pawcare.upload-dir:uploads}") String uploadDir
+            PhotoStorage photoStorage,
+            ObjectMapper objectMapper,
+            List<EntityCache<?>> caches,
+            ScheduleIndex scheduleIndex,
+            PetSearchIndex petSearchIndex
     ) {
         this.pawCareService = pawCareService;
-        this.uploadDir = (uploadDir == null || uploadDir.isBlank()) ? "uploads" : uploadDir;
-        new File(this.uploadDir).mkdirs();
+        this.photoStorage = photoStorage;
+        this.caches = caches;
+        this.scheduleIndex = scheduleIndex;
+        this.petSearchIndex = petSearchIndex;
+        this.ndjsonWriter = objectMapper.writerFor(OperationLog.class);
     }
 
     /* --------- Pets --------- */
+    // Summaries (with procedureCount) by default; include=procedures returns full pets for the page
     @GetMapping("/pets")
-    public List<Pet> listPets(){ return pawCareService.getAllPets(); }
+    public ResponseEntity<? extends List<?>> listPets(@RequestParam(required=false) String cursor,
+                                                      @RequestParam(required=false) Integer limit,
+                                                      @RequestParam(defaultValue="false") boolean count,
+                                                      @RequestParam(required=false) String include,
+                                                      WebRequest request){
+        if (request.checkNotModified(ETags.collection(pawCareService.changeGeneration(Pet.class)))) return null;
+        int size = pageSize(limit);
+        long after = Cursor.decode(cursor);
+        LongSupplier total = count ? pawCareService::countPets : null;
+        if ("procedures".equals(include)) {
+            return page(pawCareService.getPetsWithProceduresAfter(after, size + 1), size, Pet::getId, total);
+        }
+        return page(pawCareService.getPetSummariesAfter(after, size + 1), size, p -> p.id, total);
+    }
+
+    // Ranked prefix search over name, owner, breed and microchip, answered from memory; best hits first
+    @GetMapping("/pets/search")
+    public ResponseEntity<List<PetSearchHit>> searchPets(@RequestParam String q,
+                                                         @RequestParam(required=false) String cursor,
+                                                         @RequestParam(required=false) Integer limit,
+                                                         WebRequest request){
+        if (request.checkNotModified(ETags.collection(pawCareService.changeGeneration(Pet.class)))) return null;
+        int size = pageSize(limit);
+        int offset = Cursor.decodeOffset(cursor);
+        PetSearchIndex.Page page = petSearchIndex.search(q, offset, size);
+        HttpHeaders headers = new HttpHeaders();
+        if ((long) offset + size < page.total()) headers.set(NEXT_CURSOR_HEADER, Cursor.encodeOffset(offset + size));
+        headers.set(TOTAL_COUNT_HEADER, Integer.toString(page.total()));
+        return ResponseEntity.ok().headers(headers).body(page.hits());
+    }
 
     @GetMapping("/pets/{id}")
     public ResponseEntity<Pet> getPet(@PathVariable long id){
-        return pawCareService.getPetById(id).map(ResponseEntity::ok)
+        return pawCareService.getPetWithProcedures(id).map(p -> tagged(p, p.getVersion()))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -46,39 +109,52 @@ public class ApiControllers {
     }
 
     @PutMapping("/pets/{id}")
-    public ResponseEntity<Pet> updatePet(@PathVariable long id, @RequestBody Pet p){
-        if (pawCareService.getPetById(id).isEmpty()) return ResponseEntity.notFound().build();
+    public ResponseEntity<Pet> updatePet(@PathVariable long id, @RequestBody Pet p,
+                                         @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
+        Optional<Pet> existing = pawCareService.getPetById(id);
+        if (existing.isEmpty()) return missing(ifMatch);
+        // The merge is checked against this version, so a write racing ours still ends in 412
+        p.setVersion(requireMatch(ifMatch, existing.get().getVersion()));
         if (p.getProcedures() == null) p.setProcedures(new ArrayList<>());
-        return ResponseEntity.ok(pawCareService.updatePet(id, p));
+        Pet updated = pawCareService.updatePet(id, p);
+        return tagged(updated, updated.getVersion());
+    }
+
+    // JSON merge patch: only the fields present are written, null clears a field; procedures are never touched
+    @PatchMapping(value="/pets/{id}", consumes={MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchPet(@PathVariable long id, @RequestBody JsonNode patch,
+                                         @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
+        return patched(pawCareService.patchPet(id, patch, ETags.expected(ifMatch)), ifMatch);
     }
 
     @DeleteMapping("/pets/{id}")
-    public ResponseEntity<Void> deletePet(@PathVariable long id){
-        if (pawCareService.getPetById(id).isEmpty()) return ResponseEntity.notFound().build();
-        pawCareService.deletePet(id);
+    public ResponseEntity<Void> deletePet(@PathVariable long id,
+                                          @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
+        if (!pawCareService.deletePet(id, ETags.expected(ifMatch))) return missing(ifMatch);
         return ResponseEntity.noContent().build();
     }
 
     @PostMapping(value="/pets/{id}/photo", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Map<String,String>> uploadPhoto(@PathVariable long id,
                       @RequestPart("file") MultipartFile file) throws IOException {
-        Pet pet = pawCareService.getPetById(id).orElse(null);
-        if (pet == null) return ResponseEntity.notFound().build();
+        if (!pawCareService.petExists(id)) return ResponseEntity.notFound().build();
 
-        String filename = System.currentTimeMillis() + "_" +
-                StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-        Path dest = Path.of(uploadDir, filename);
-        Files.copy(file.getInputStream(), dest, StandardCopyOption.REPLACE_EXISTING);
-        pet.setPhoto("/uploads/" + filename);
-        pawCareService.updatePet(id, pet);
-        return ResponseEntity.ok(Map.of("url", pet.getPhoto()));
+        String url;
+        try (InputStream in = file.getInputStream()) {
+            url = photoStorage.store(in, file.getOriginalFilename());
+        }
+        if (!pawCareService.updatePetPhoto(id, url)) return ResponseEntity.notFound().build();
+        String thumbnail = PhotoStorage.thumbnailUrl(url);
+        return ResponseEntity.ok(thumbnail == null ? Map.of("url", url) : Map.of("url", url, "thumbnail", thumbnail));
     }
 
     @PostMapping("/pets/{id}/procedures")
     public ResponseEntity<Pet> addProcedure(@PathVariable long id, @RequestBody Procedure proc){
         try {
             Pet pet = pawCareService.addProcedureToPet(id, proc);
-            return ResponseEntity.ok(pet);
+            return tagged(pet, pet.getVersion());
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -86,65 +162,146 @@ public class ApiControllers {
 
     /* --------- Appointments --------- */
     @GetMapping("/appointments")
-    public List<Appointment> listAppts(@RequestParam(required=false) String vet,
-                                       @RequestParam(required=false) Boolean unassigned){
-        List<Appointment> all = pawCareService.getAllAppointments();
-        if (vet != null && !vet.isBlank()) {
-            all = all.stream().filter(a -> vet.equalsIgnoreCase(Objects.toString(a.getVet(), ""))).toList();
-        }
-        if (Boolean.TRUE.equals(unassigned)) {
-            all = all.stream().filter(a -> a.getVet()==null || a.getVet().isBlank()).toList();
-        }
-        return all;
+    public ResponseEntity<List<AppointmentRow>> listAppts(@RequestParam(required=false) String vet,
+                                                       @RequestParam(required=false) Boolean unassigned,
+                                                       @RequestParam(required=false) String status,
+                                                       @RequestParam(required=false) String from,
+                                                       @RequestParam(required=false) String to,
+                                                       @RequestParam(required=false) String cursor,
+                                                       @RequestParam(required=false) Integer limit,
+                                                       @RequestParam(defaultValue="false") boolean count,
+                                                       WebRequest request){
+        if (request.checkNotModified(ETags.collection(pawCareService.changeGeneration(Appointment.class)))) return null;
+        int size = pageSize(limit);
+        boolean onlyUnassigned = Boolean.TRUE.equals(unassigned);
+        LocalDate f = from == null ? null : LocalDate.parse(from);
+        LocalDate t = to == null ? null : LocalDate.parse(to);
+        List<AppointmentRow> rows = pawCareService.findAppointments(vet, onlyUnassigned, status, f, t,
+                Cursor.decode(cursor), size + 1);
+        return page(rows, size, r -> r.id,
+                count ? () -> pawCareService.countAppointments(vet, onlyUnassigned, status, f, t) : null);
     }
 
     @PostMapping("/appointments")
     public Appointment createAppt(@RequestBody Appointment a){ return pawCareService.saveAppointment(a); }
 
+    @GetMapping("/appointments/{id}")
+    public ResponseEntity<Appointment> getAppt(@PathVariable long id){
+        return pawCareService.getAppointmentById(id).map(a -> tagged(a, a.getVersion()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/appointments/{id}/approve")
-    public ResponseEntity<Appointment> approve(@PathVariable long id){
+    public ResponseEntity<Appointment> approve(@PathVariable long id,
+                                               @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
         try {
-            Appointment appointment = pawCareService.approveAppointment(id);
-            return ResponseEntity.ok(appointment);
+            Appointment appointment = pawCareService.approveAppointment(id, ETags.expected(ifMatch));
+            return tagged(appointment, appointment.getVersion());
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return missing(ifMatch);
         }
     }
 
     @PostMapping("/appointments/{id}/done")
-    public ResponseEntity<Appointment> done(@PathVariable long id){
+    public ResponseEntity<Appointment> done(@PathVariable long id,
+                                            @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
         try {
-            Appointment appointment = pawCareService.markAppointmentDone(id);
-            return ResponseEntity.ok(appointment);
+            Appointment appointment = pawCareService.markAppointmentDone(id, ETags.expected(ifMatch));
+            return tagged(appointment, appointment.getVersion());
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return missing(ifMatch);
         }
     }
 
+    @PatchMapping(value="/appointments/{id}", consumes={MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchAppt(@PathVariable long id, @RequestBody JsonNode patch,
+                                          @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
+        return patched(pawCareService.patchAppointment(id, patch, ETags.expected(ifMatch)), ifMatch);
+    }
+
     @DeleteMapping("/appointments/{id}")
-    public ResponseEntity<Void> deleteAppt(@PathVariable long id){
-        if (pawCareService.getAppointmentById(id).isEmpty()) return ResponseEntity.notFound().build();
+    public ResponseEntity<Void> deleteAppt(@PathVariable long id,
+                                           @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
+        Optional<Appointment> existing = pawCareService.getAppointmentById(id);
+        if (existing.isEmpty()) return missing(ifMatch);
+        requireMatch(ifMatch, existing.get().getVersion());
         pawCareService.deleteAppointment(id);
         return ResponseEntity.noContent().build();
     }
 
+    /* --------- Vets --------- */
+    // Answered from the in-memory schedule index; no database access
+    @GetMapping("/vets/{vet}/free-slots")
+    public Map<String,Object> freeSlots(@PathVariable String vet, @RequestParam String date){
+        LocalDate day = LocalDate.parse(date);
+        Map<String,Object> out = new LinkedHashMap<>();
+        out.put("vet", vet);
+        out.put("date", day);
+        out.put("slotMinutes", scheduleIndex.getSlotMinutes());
+        out.put("free", scheduleIndex.freeSlots(vet, day));
+        return out;
+    }
+
     /* --------- Prescriptions --------- */
     @GetMapping("/prescriptions")
-    public List<Prescription> listRx(){ return pawCareService.getAllPrescriptions(); }
+    public ResponseEntity<List<PrescriptionRow>> listRx(@RequestParam(required=false) String cursor,
+                                                     @RequestParam(required=false) Integer limit,
+                                                     @RequestParam(defaultValue="false") boolean count,
+                                                     WebRequest request){
+        if (request.checkNotModified(ETags.collection(pawCareService.changeGeneration(Prescription.class)))) return null;
+        int size = pageSize(limit);
+        List<PrescriptionRow> rows = pawCareService.getPrescriptionsAfter(Cursor.decode(cursor), size + 1);
+        return page(rows, size, r -> r.id, count ? pawCareService::countPrescriptions : null);
+    }
+
+    @GetMapping("/prescriptions/{id}")
+    public ResponseEntity<Prescription> getRx(@PathVariable long id){
+        return pawCareService.getPrescriptionById(id).map(rx -> tagged(rx, rx.getVersion()))
+                .orElse(ResponseEntity.notFound().build());
+    }
 
     @PostMapping("/prescriptions")
     public Prescription createRx(@RequestBody Prescription r){ return pawCareService.savePrescription(r); }
 
+    @PatchMapping(value="/prescriptions/{id}", consumes={MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchRx(@PathVariable long id, @RequestBody JsonNode patch,
+                                        @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
+        return patched(pawCareService.patchPrescription(id, patch, ETags.expected(ifMatch)), ifMatch);
+    }
+
     @PostMapping("/prescriptions/{id}/dispense")
-    public ResponseEntity<Prescription> dispense(@PathVariable long id){
+    public ResponseEntity<Prescription> dispense(@PathVariable long id,
+                                                 @RequestHeader(value=HttpHeaders.IF_MATCH, required=false) String ifMatch){
         try {
-            Prescription prescription = pawCareService.dispensePrescription(id);
-            return ResponseEntity.ok(prescription);
+            Prescription prescription = pawCareService.dispensePrescription(id, ETags.expected(ifMatch));
+            return tagged(prescription, prescription.getVersion());
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return missing(ifMatch);
         }
     }
 
+    /* --------- Pharmacy --------- */
+    // Work queue: undispensed prescriptions, oldest first. Reads only walk pending rows of the
+    // (dispensed, date) index, so they cost the same however much dispensed history there is.
+    @GetMapping("/pharmacy/queue")
+    public ResponseEntity<List<PrescriptionRow>> pharmacyQueue(@RequestParam(required=false) String cursor,
+                                                               @RequestParam(required=false) Integer limit,
+                                                               @RequestParam(defaultValue="false") boolean count,
+                                                               WebRequest request){
+        if (request.checkNotModified(ETags.collection(pawCareService.changeGeneration(Prescription.class)))) return null;
+        int size = pageSize(limit);
+        Cursor.Dated after = Cursor.decodeDated(cursor);
+        List<PrescriptionRow> rows = pawCareService.getPharmacyQueueAfter(after.date(), after.id(), size + 1);
+        return keysetPage(rows, size, r -> Cursor.encodeDated(r.date, r.id),
+                count ? pawCareService::countPharmacyQueue : null);
+    }
+
     /* --------- Users --------- */
     @GetMapping("/users")
     public List<User> listUsers(){ return pawCareService.getAllUsers(); }
@@ -158,6 +315,11 @@ public class ApiControllers {
         return ResponseEntity.ok(pawCareService.updateUser(id, u));
     }
 
+    @PatchMapping(value="/users/{id}", consumes={MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchUser(@PathVariable long id, @RequestBody JsonNode patch){
+        return patched(pawCareService.patchUser(id, patch), null);
+    }
+
     @DeleteMapping("/users/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable long id){
         if (pawCareService.getUserById(id).isEmpty()) return ResponseEntity.notFound().build();
@@ -176,6 +338,53 @@ public class ApiControllers {
         return pawCareService.getOperationLogsBetween(f, t);
     }
 
+    @GetMapping("/ops/cache/stats")
+    public Map<String, Map<String, Long>> cacheStats() {
+        Map<String, Map<String, Long>> out = new TreeMap<>();
+        for (EntityCache<?> c : caches) out.put(c.getName(), c.stats());
+        return out;
+    }
+
+    @GetMapping("/ops/log/export")
+    public ResponseEntity<StreamingResponseBody> exportOpsLog(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue="ndjson") String format,
+            @RequestParam(required=false) String type,
+            @RequestParam(required=false) Long petId,
+            @RequestParam(defaultValue="0") long afterId
+    ){
+        LocalDate f = LocalDate.parse(from);
+        LocalDate t = LocalDate.parse(to);
+        String blankSafeType = (type == null || type.isBlank()) ? null : type;
+        boolean csv = switch (format) {
+            case "ndjson" -> false;
+            case "csv" -> true;
+            default -> throw new IllegalArgumentException("Invalid format");
+        };
+
+        // Rows are written as they arrive; resume an interrupted export with afterId = last id received
+        StreamingResponseBody body = out -> {
+            Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            if (csv) w.write("id,timestamp,type,message,petId\n");
+            pawCareService.exportOperationLogs(f, t, blankSafeType, petId, afterId, o -> {
+                try {
+                    if (csv) writeCsvRow(w, o);
+                    else { w.write(ndjsonWriter.writeValueAsString(o)); w.write('\n'); }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            w.flush();
+        };
+        String filename = "ops-log-" + f + "_" + t + (csv ? ".csv" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                                 : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
     @GetMapping("/reports/summary")
     public ReportSummary summary(@RequestParam String period,
                                  @RequestParam(required=false) String from,
@@ -194,32 +403,98 @@ public class ApiControllers {
             default -> throw new IllegalArgumentException("Invalid period");
         }
 
-        ReportSummary s = new ReportSummary();
-        s.period = period;
-        s.from = start.toString();
-        s.to = end.toString();
-
-        // Appointments Done
-        s.appointmentsDone = (int) pawCareService.getAllAppointments().stream()
-                .filter(a -> "Done".equalsIgnoreCase(a.getStatus()))
-                .filter(a -> a.getCompletedAt() != null)
-                .filter(a -> !a.getCompletedAt().isBefore(start) && !a.getCompletedAt().isAfter(end))
-                .count();
-
-        // Prescriptions Dispensed
-        s.prescriptionsDispensed = (int) pawCareService.getAllPrescriptions().stream()
-                .filter(r -> r.isDispensed() && r.getDispensedAt() != null)
-                .filter(r -> !r.getDispensedAt().isBefore(start) && !r.getDispensedAt().isAfter(end))
-                .count();
-
-        // Pets Added — infer from ops log
-        s.petsAdded = (int) pawCareService.getOperationLogsBetween(start, end).stream()
-                .filter(o -> "PET_CREATED".equals(o.getType()))
-                .count();
-
-        // All events in window
-        s.events = pawCareService.getOperationLogsBetween(start, end);
-
-        return s;
+        return pawCareService.buildSummary(period, start, end);
+    }
+
+    @PostMapping("/reports/rollup/rebuild")
+    public Map<String,Integer> rebuildRollup(){
+        return Map.of("rows", pawCareService.rebuildDailyStats());
+    }
+
+    private static ResponseEntity<Void> patched(boolean found, String ifMatch) {
+        if (!found) return missing(ifMatch);
+        Long expectedVersion = ETags.expected(ifMatch);
+        // With If-Match the new version is known without reading the row back
+        if (expectedVersion != null) return ResponseEntity.noContent().eTag(ETags.of(expectedVersion + 1)).build();
+        return ResponseEntity.noContent().build();
+    }
+
+    /* --------- Versioning helpers --------- */
+    // 404, or 412 when If-Match: * asked for a representation that does not exist
+    private static <T> ResponseEntity<T> missing(String ifMatch) {
+        return ETags.any(ifMatch) ? ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build() : ResponseEntity.notFound().build();
+    }
+
+    // GETs answer If-None-Match with 304 through HttpEntityMethodProcessor once the ETag is set
+    private static <T> ResponseEntity<T> tagged(T body, long version) {
+        return ResponseEntity.ok().eTag(ETags.of(version)).body(body);
+    }
+
+    /** Returns the version the write should be checked against; 412 when If-Match names another one. */
+    private static long requireMatch(String ifMatch, long currentVersion) {
+        Long expected = ETags.expected(ifMatch);
+        if (expected != null && expected != currentVersion) {
+            throw new OptimisticLockingFailureException("Resource has changed; current version is " + currentVersion);
+        }
+        return currentVersion;
+    }
+
+    /* --------- Paging helpers --------- */
+    @ExceptionHandler({IllegalArgumentException.class, DateTimeParseException.class})
+    public ResponseEntity<Map<String,String>> badRequest(RuntimeException e){
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+
+    @ExceptionHandler(SlotConflictException.class)
+    public ResponseEntity<Map<String,String>> conflict(SlotConflictException e){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String,String>> preconditionFailed(OptimisticLockingFailureException e){
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("error", "Resource has been modified; reload and retry"));
+    }
+
+    private static void writeCsvRow(Writer w, OperationLog o) throws IOException {
+        w.write(String.valueOf(o.getId()));
+        w.write(',');
+        w.write(o.getTs() == null ? "" : o.getTs().toString());
+        w.write(',');
+        w.write(csvField(o.getType()));
+        w.write(',');
+        w.write(csvField(o.getMessage()));
+        w.write(',');
+        w.write(o.getPetId() == null ? "" : o.getPetId().toString());
+        w.write('\n');
+    }
+
+    private static String csvField(String v){
+        if (v == null) return "";
+        if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0 && v.indexOf('\r') < 0) return v;
+        return '"' + v.replace("\"", "\"\"") + '"';
+    }
+
+    private static int pageSize(Integer limit){
+        if (limit == null) return DEFAULT_PAGE_SIZE;
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // rows were fetched with size + 1 so the extra row tells us whether another page exists
+    private static <T> ResponseEntity<List<T>> page(List<T> rows, int size, Function<T, Long> idOf,
+                                                    LongSupplier total){
+        return keysetPage(rows, size, row -> Cursor.encode(idOf.apply(row)), total);
+    }
+
+    private static <T> ResponseEntity<List<T>> keysetPage(List<T> rows, int size, Function<T, String> cursorOf,
+                                                          LongSupplier total){
+        HttpHeaders headers = new HttpHeaders();
+        List<T> items = rows;
+        if (rows.size() > size) {
+            items = rows.subList(0, size);
+            headers.set(NEXT_CURSOR_HEADER, cursorOf.apply(items.get(size - 1)));
+        }
+        if (total != null) headers.set(TOTAL_COUNT_HEADER, Long.toString(total.getAsLong()));
+        return ResponseEntity.ok().headers(headers).body(items);
     }
 }
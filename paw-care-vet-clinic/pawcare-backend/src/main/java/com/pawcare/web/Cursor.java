@@ -0,0 +1,81 @@
+package com.pawcare.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for the list endpoints. Clients only echo it back;
+ * internally it is the last id of the previous page, the last (date, id) for
+ * lists ordered by date, or for ranked results (search) the position where
+ * the next page starts.
+ */
+final class Cursor {
+
+    private static final String PREFIX = "id:";
+    private static final String DATED_PREFIX = "dt:";
+    private static final String OFFSET_PREFIX = "at:";
+
+    /** Position in a (date, id) ordered list; date is null for rows without one. */
+    record Dated(LocalDate date, long id) {}
+
+    private Cursor() {}
+
+    static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    static String encodeDated(LocalDate date, long lastId) {
+        String raw = DATED_PREFIX + (date == null ? "" : date.toString()) + "/" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String encodeOffset(int offset) {
+        byte[] raw = (OFFSET_PREFIX + offset).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /** Returns the id to continue after; 0 for the first page. */
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+        try {
+            return Long.parseLong(payload(cursor, PREFIX));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /** Returns the (date, id) to continue after; (null, 0) for the first page. */
+    static Dated decodeDated(String cursor) {
+        if (cursor == null || cursor.isBlank()) return new Dated(null, 0L);
+        try {
+            String raw = payload(cursor, DATED_PREFIX);
+            int slash = raw.indexOf('/');
+            if (slash < 0) throw new IllegalArgumentException("Invalid cursor");
+            LocalDate date = slash == 0 ? null : LocalDate.parse(raw.substring(0, slash));
+            return new Dated(date, Long.parseLong(raw.substring(slash + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /** Returns the position of the next ranked page; 0 for the first page. */
+    static int decodeOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0;
+        try {
+            int offset = Integer.parseInt(payload(cursor, OFFSET_PREFIX));
+            if (offset < 0) throw new IllegalArgumentException("Negative offset");
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String payload(String cursor, String prefix) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!raw.startsWith(prefix)) throw new IllegalArgumentException("Invalid cursor");
+        return raw.substring(prefix.length());
+    }
+}
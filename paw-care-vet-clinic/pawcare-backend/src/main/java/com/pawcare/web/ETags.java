@@ -0,0 +1,40 @@
+package com.pawcare.web;
+
+/**
+ * Entity tags for the API. A single record is tagged with its @Version ("3"); a collection
+ * with a weak tag built from the service's change generation for that table.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    static String collection(String generation) {
+        return "W/\"" + generation + "\"";
+    }
+
+    /**
+     * The version an If-Match header requires, or null when the header is absent or "*".
+     * If-Match compares strongly, so a weak tag never matches: it, and anything else that is not
+     * a single version tag, maps to -1, which yields 412.
+     */
+    static Long expected(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) return null;
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) return null;
+        if (tag.length() < 2 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') return -1L;
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /** True for If-Match: *, which fails when there is no current representation (RFC 9110 section 13.1.1). */
+    static boolean any(String ifMatch) {
+        return ifMatch != null && ifMatch.trim().equals("*");
+    }
+}
@@ -0,0 +1,47 @@
+package com.pawcare.web;
+
+import com.pawcare.events.ChangeFeed;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Server-sent change feed. Every event is {"type","id","version"} for one committed write; a "reset"
+ * event means events were missed and lists should be reloaded. Browsers reconnect on their own and
+ * send Last-Event-ID, which resumes the stream where it broke off.
+ */
+@RestController
+public class EventsController {
+
+    private final ChangeFeed changeFeed;
+
+    public EventsController(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @GetMapping(value = "/api/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = changeFeed.subscribe(lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header("X-Accel-Buffering", "no")   // keep reverse proxies from buffering the stream
+                .body(emitter);
+    }
+
+    // A send to a closed tab fails with a broken pipe and is re-dispatched here; the stream is over, nothing to answer
+    @ExceptionHandler(IOException.class)
+    public void clientGone() {
+    }
+}
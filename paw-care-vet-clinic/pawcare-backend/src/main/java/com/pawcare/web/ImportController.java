@@ -0,0 +1,47 @@
+package com.pawcare.web;
+
+import com.pawcare.dto.ImportResult;
+import com.pawcare.service.ImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Bulk import endpoints. The request body is consumed as a stream: text/csv (header row first)
+ * or application/x-ndjson (one JSON object per line). Row failures are reported in the result;
+ * the rest of the file is still imported.
+ */
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(value="/{entity}", consumes={NDJSON, CSV, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ImportResult> importRows(@PathVariable String entity,
+                                                   @RequestParam(required=false) Integer chunkSize,
+                                                   @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                   InputStream body) throws IOException {
+        if (!importService.supports(entity)) return ResponseEntity.notFound().build();
+        ImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? ImportService.Format.CSV : ImportService.Format.NDJSON;
+        return ResponseEntity.ok(importService.importRows(entity, format, body, chunkSize));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String,String>> badRequest(IllegalArgumentException e){
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+}
@@ -0,0 +1,78 @@
+package com.pawcare.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Makes server.compression.min-response-size work for JSON. Spring flushes the response after
+ * writing a body, which commits it without a Content-Length, and Tomcat then gzips even a
+ * 150-byte body. Ignoring flushes of an uncommitted JSON response lets a body that fits the
+ * response buffer go out with its length when the request ends, so the threshold applies;
+ * a bigger body fills the buffer, commits and streams as before.
+ *
+ * Other content types (the event stream, exports, photos) flush as they ask to.
+ */
+@Component
+public class JsonFlushFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, new Response(response));
+    }
+
+    private static final class Response extends HttpServletResponseWrapper {
+        private ServletOutputStream out;
+
+        Response(HttpServletResponse response) {
+            super(response);
+        }
+
+        boolean holdFlush() {
+            String type = getContentType();
+            return !isCommitted() && type != null && type.startsWith(MediaType.APPLICATION_JSON_VALUE);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (!holdFlush()) super.flushBuffer();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (out == null) out = new Output(super.getOutputStream(), this);
+            return out;
+        }
+    }
+
+    private static final class Output extends ServletOutputStream {
+        private final ServletOutputStream target;
+        private final Response response;
+
+        Output(ServletOutputStream target, Response response) {
+            this.target = target;
+            this.response = response;
+        }
+
+        @Override public void write(int b) throws IOException { target.write(b); }
+        @Override public void write(byte[] b, int off, int len) throws IOException { target.write(b, off, len); }
+        @Override public boolean isReady() { return target.isReady(); }
+        @Override public void setWriteListener(WriteListener listener) { target.setWriteListener(listener); }
+        @Override public void close() throws IOException { target.close(); }
+
+        @Override
+        public void flush() throws IOException {
+            if (!response.holdFlush()) target.flush();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.pawcare.web;
+
+import com.pawcare.audit.AuditSink;
+import com.pawcare.cache.EntityCache;
+import com.pawcare.events.ChangeFeed;
+import com.pawcare.metrics.OperationLogMetrics;
+import com.pawcare.metrics.PoolMetrics;
+import com.pawcare.metrics.PrometheusText;
+import com.pawcare.metrics.RequestMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prometheus scrape endpoint. Everything here is a LongAdder or a fixed-bucket histogram that is
+ * only summed at scrape time, so the request path pays a few increments and nothing else.
+ * The quantile gauges cover the whole uptime; for a recent window use
+ * histogram_quantile(0.99, rate(pawcare_http_request_duration_seconds_bucket[5m])).
+ */
+@RestController
+public class MetricsController {
+
+    private final RequestMetrics requestMetrics;
+    private final PoolMetrics poolMetrics;
+    private final OperationLogMetrics operationLogMetrics;
+    private final AuditSink auditSink;
+    private final List<EntityCache<?>> caches;
+    private final ChangeFeed changeFeed;
+
+    public MetricsController(RequestMetrics requestMetrics,
+                             PoolMetrics poolMetrics,
+                             OperationLogMetrics operationLogMetrics,
+                             AuditSink auditSink,
+                             List<EntityCache<?>> caches,
+                             ChangeFeed changeFeed) {
+        this.requestMetrics = requestMetrics;
+        this.poolMetrics = poolMetrics;
+        this.operationLogMetrics = operationLogMetrics;
+        this.auditSink = auditSink;
+        this.caches = caches;
+        this.changeFeed = changeFeed;
+    }
+
+    @GetMapping("/api/ops/metrics")
+    public ResponseEntity<String> metrics() {
+        PrometheusText out = new PrometheusText();
+        requestMetrics.write(out);
+        poolMetrics.write(out);
+        operationLogMetrics.write(out);
+
+        out.family("pawcare_audit_queue_entries", "gauge", "Operation-log entries waiting for the audit writer.");
+        out.sample("pawcare_audit_queue_entries", "", auditSink.pending());
+
+        out.family("pawcare_cache_requests_total", "counter", "Entity cache lookups by result.");
+        for (EntityCache<?> c : caches) {
+            Map<String, Long> s = c.stats();
+            String cache = PrometheusText.label("cache", c.getName());
+            out.sample("pawcare_cache_requests_total", cache + ",result=\"hit\"", s.get("hits"));
+            out.sample("pawcare_cache_requests_total", cache + ",result=\"miss\"", s.get("misses"));
+        }
+        out.family("pawcare_cache_evictions_total", "counter", "Entity cache LRU evictions.");
+        for (EntityCache<?> c : caches) {
+            out.sample("pawcare_cache_evictions_total", PrometheusText.label("cache", c.getName()), c.stats().get("evictions"));
+        }
+        out.family("pawcare_cache_entries", "gauge", "Entity cache size.");
+        for (EntityCache<?> c : caches) {
+            out.sample("pawcare_cache_entries", PrometheusText.label("cache", c.getName()), c.stats().get("size"));
+        }
+
+        out.family("pawcare_events_subscribers", "gauge", "Open /api/events streams.");
+        out.sample("pawcare_events_subscribers", "", changeFeed.subscriberCount());
+        out.family("pawcare_events_published_total", "counter", "Change events published to the feed.");
+        out.sample("pawcare_events_published_total", "", changeFeed.publishedCount());
+        out.family("pawcare_events_resets_total", "counter",
+                "Reset events sent to subscribers that fell behind the ring buffer or resumed from an unknown id.");
+        out.sample("pawcare_events_resets_total", "", changeFeed.resetCount());
+        out.family("pawcare_events_stalled_total", "counter",
+                "Streams dropped because a send stayed blocked past pawcare.events.send-timeout.");
+        out.sample("pawcare_events_stalled_total", "", changeFeed.stallCount());
+
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            out.family("process_cpu_seconds_total", "counter", "User and system CPU time of the JVM process.");
+            out.sample("process_cpu_seconds_total", "", os.getProcessCpuTime() / 1e9);
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, PrometheusText.CONTENT_TYPE)
+                .body(out.toString());
+    }
+}
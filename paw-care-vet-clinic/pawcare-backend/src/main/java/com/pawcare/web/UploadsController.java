@@ -0,0 +1,230 @@
+package com.pawcare.web;
+
+import com.pawcare.storage.PhotoStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves /uploads/** with validators and long-lived caching. Content-named files
+ * (see PhotoStorage) never change, so they get a strong ETag from their hash and
+ * an immutable Cache-Control; older timestamp-named files ("1700000000000_My Dog (1).jpg")
+ * keep whatever name they were stored under and are revalidated.
+ * A thumbnail that is not rendered (yet, or ever) redirects to its full photo.
+ * Bodies go out through Tomcat sendfile when available, otherwise via FileChannel.transferTo.
+ */
+@RestController
+public class UploadsController {
+
+    private static final Pattern CONTENT_NAME = Pattern.compile("([0-9a-f]{64})\\.[a-z0-9]+");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, no-cache";
+
+    // Tomcat sendfile request attributes (org.apache.tomcat.util.net.Constants)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private final Path root;
+    private final PhotoStorage photoStorage;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder partial = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+    private final LongAdder sendfileResponses = new LongAdder();
+    private final LongAdder thumbnailFallbacks = new LongAdder();
+
+    public UploadsController(@Value("${pawcare.upload-dir:uploads}") String uploadDir, PhotoStorage photoStorage) {
+        this.root = Path.of((uploadDir == null || uploadDir.isBlank()) ? "uploads" : uploadDir);
+        this.photoStorage = photoStorage;
+    }
+
+    @GetMapping("/uploads/{name}")
+    public void photo(@PathVariable String name, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        serve(root, name, "", req, res);
+    }
+
+    @GetMapping("/uploads/thumbs/{name}")
+    public void thumbnail(@PathVariable String name, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        Path dir = root.resolve("thumbs");
+        Path thumb = fileIn(dir, name);
+        if (thumb != null && !Files.isRegularFile(thumb)) {
+            String photo = photoStorage.photoForMissingThumbnail(name);
+            if (photo != null) {
+                // Not cached, so the thumbnail is picked up once it has been rendered
+                thumbnailFallbacks.increment();
+                res.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+                res.sendRedirect("/uploads/" + UriUtils.encodePathSegment(photo, StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        serve(dir, name, "-t", req, res);
+    }
+
+    @GetMapping("/api/ops/uploads/stats")
+    public Map<String, Long> stats() {
+        return Map.of(
+                "requests", requests.sum(),
+                "notModified", notModified.sum(),
+                "partial", partial.sum(),
+                "bytesServed", bytesServed.sum(),
+                "sendfile", sendfileResponses.sum(),
+                "thumbnailFallbacks", thumbnailFallbacks.sum());
+    }
+
+    private void serve(Path dir, String name, String etagSuffix,
+                       HttpServletRequest req, HttpServletResponse res) throws IOException {
+        requests.increment();
+        Path file = fileIn(dir, name);
+        if (file == null || !Files.isRegularFile(file)) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(file);
+        Matcher content = CONTENT_NAME.matcher(name);
+        boolean immutable = content.matches();
+        String etag = immutable
+                ? "\"" + content.group(1) + etagSuffix + "\""
+                : "\"" + Long.toHexString(length) + "-" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+
+        res.setHeader(HttpHeaders.ETAG, etag);
+        res.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE : REVALIDATE);
+        res.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matches(req.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModified.increment();
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        res.setContentType(MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0, end = length; // end is exclusive
+        String range = req.getHeader(HttpHeaders.RANGE);
+        String ifRange = req.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] span = byteRange(range, length);
+            if (span == UNSATISFIABLE) {
+                res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                res.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (span != null) {
+                start = span[0];
+                end = span[1];
+                partial.increment();
+                res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+            // Multi-range and invalid headers fall through to a full 200 response, which RFC 9110 allows
+        }
+
+        long count = end - start;
+        res.setContentLengthLong(count);
+        if ("HEAD".equals(req.getMethod())) return;
+
+        bytesServed.add(count);
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORTED))) {
+            sendfileResponses.increment();
+            req.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = res.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long pos = start;
+            while (pos < end) {
+                long n = ch.transferTo(pos, end - pos, target);
+                if (n <= 0) break;
+                pos += n;
+            }
+            out.flush();
+        }
+    }
+
+    // The file `name` names directly inside dir; null when the name would reach anywhere else, or
+    // cannot be a file name on this platform
+    private static Path fileIn(Path dir, String name) {
+        if (!safeName(name)) return null;
+        try {
+            Path base = dir.toAbsolutePath().normalize();
+            Path file = base.resolve(name).normalize();
+            return base.equals(file.getParent()) ? file : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    // One path segment: any name an upload may have been stored under, but no separators, no "."
+    // or "..", and no control characters
+    static boolean safeName(String name) {
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '/' || c == '\\' || Character.isISOControl(c)) return false;
+        }
+        return true;
+    }
+
+    // A single byte range as {start, end exclusive}. Null when the header is to be ignored: anything
+    // but one range, a position too large for a long, or last < first (RFC 9110 section 14.1.1).
+    // UNSATISFIABLE when the range is valid but selects nothing in the file.
+    private static long[] byteRange(String header, long length) {
+        Matcher m = SINGLE_RANGE.matcher(header.trim());
+        if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty())) return null;
+        long first, last;
+        try {
+            first = m.group(1).isEmpty() ? -1 : Long.parseLong(m.group(1));
+            last = m.group(2).isEmpty() ? -1 : Long.parseLong(m.group(2));
+        } catch (NumberFormatException overflow) {
+            return null;
+        }
+        if (first < 0) {
+            // Suffix range: the final `last` bytes
+            return last == 0 || length == 0 ? UNSATISFIABLE : new long[]{Math.max(0, length - last), length};
+        }
+        if (last >= 0 && last < first) return null;
+        if (first >= length) return UNSATISFIABLE;
+        return new long[]{first, last < 0 ? length : Math.min(length, last + 1)};
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.pawcare.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityCacheTest {
+
+    private final EntityCache<String> cache = new EntityCache<>("test", 10, Duration.ofMinutes(10));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void cachesLoadedValue() {
+        assertThat(cache.get(1L, this::load)).contains("v1");
+        assertThat(cache.get(1L, this::load)).contains("v1");
+        assertThat(loads).hasValue(1);
+    }
+
+    // The write lands between the loader's read and the put: its value must not be cached
+    @Test
+    void loadOverlappingInvalidationIsNotCached() {
+        Optional<String> stale = cache.get(1L, id -> {
+            Optional<String> read = load(id);
+            cache.invalidate(id);
+            return read;
+        });
+
+        assertThat(stale).contains("v1");
+        assertThat(cache.get(1L, this::load)).contains("v2");
+        assertThat(cache.get(1L, this::load)).contains("v2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidationOfAnotherIdDoesNotDropTheLoad() {
+        cache.get(1L, id -> {
+            cache.invalidate(2L);
+            return load(id);
+        });
+
+        assertThat(cache.get(1L, this::load)).contains("v1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void failedLoadLeavesNothingBehind() {
+        try {
+            cache.get(1L, id -> { throw new IllegalStateException("database down"); });
+        } catch (IllegalStateException expected) {
+            // the caller sees the failure
+        }
+
+        assertThat(cache.get(1L, this::load)).contains("v1");
+        assertThat(cache.get(1L, this::load)).contains("v1");
+        assertThat(cache.stats()).containsEntry("size", 1L);
+    }
+
+    private Optional<String> load(Long id) {
+        return Optional.of("v" + loads.incrementAndGet());
+    }
+}
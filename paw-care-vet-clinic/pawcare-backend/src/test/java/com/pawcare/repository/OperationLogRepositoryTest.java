@@ -0,0 +1,69 @@
+package com.pawcare.repository;
+
+import com.pawcare.entity.OperationLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plan checks for the operation-log range queries. H2 in MySQL mode stands in for MySQL: its
+ * EXPLAIN names the index a query is answered from, which is enough to catch a predicate that
+ * stops being sargable (a function wrapped around the timestamp column).
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class OperationLogRepositoryTest {
+
+    private static final LocalDateTime FIRST = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+    @Autowired
+    private OperationLogRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void dateRangeQueryIsAnsweredFromTimestampIndex() {
+        for (int i = 0; i < 500; i++) {
+            entityManager.persist(new OperationLog(FIRST.plusHours(7L * i), "PET_CREATED", "Added pet " + i, null));
+        }
+        entityManager.flush();
+        SqlRecorder.clear();
+
+        LocalDate from = LocalDate.of(2026, 2, 1);
+        LocalDate to = LocalDate.of(2026, 2, 3);
+        List<OperationLog> rows = repository.findByDateRange(from, to);
+
+        assertThat(rows).isNotEmpty().allSatisfy(o -> assertThat(o.getTs())
+                .isAfterOrEqualTo(from.atStartOfDay()).isBefore(to.plusDays(1).atStartOfDay()));
+        List<String> selects = SqlRecorder.statements().stream().filter(s -> s.contains("operation_logs")).toList();
+        assertThat(selects).hasSize(1);
+        assertThat(plan(selects.get(0), from.atStartOfDay(), to.plusDays(1).atStartOfDay())).contains("idx_oplog_ts");
+    }
+
+    // Guards the check above: the pre-fix predicate, DATE() around the column, must not find the index
+    @Test
+    void functionOnTimestampColumnLosesTheIndex() {
+        String plan = plan("select * from operation_logs o where cast(o.timestamp as date) between ? and ?",
+                LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 3));
+        assertThat(plan).doesNotContain("idx_oplog_ts");
+    }
+
+    private String plan(String sql, Object... params) {
+        return jdbc.queryForObject("EXPLAIN " + sql, String.class, params);
+    }
+}
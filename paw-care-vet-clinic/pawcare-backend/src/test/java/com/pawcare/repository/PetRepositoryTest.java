@@ -0,0 +1,103 @@
+package com.pawcare.repository;
+
+import com.pawcare.dto.PetSummary;
+import com.pawcare.entity.Pet;
+import com.pawcare.entity.Procedure;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts for the pet list and detail reads. Each read must cost a fixed number of
+ * statements however many pets and procedures it returns; a lazy collection touched per row
+ * (N+1) shows up here as a count that grows with the page.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class PetRepositoryTest {
+
+    private static final int PETS = 30;
+
+    @Autowired
+    private PetRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    // Pet i gets i % 4 procedures
+    @BeforeEach
+    void seed() {
+        for (int i = 0; i < PETS; i++) {
+            Pet pet = new Pet("Pet " + i, "Canine", "Beagle", "Female", 3, "chip-" + i, "Owner " + i, "Street " + i, "N/A");
+            for (int j = 0; j < i % 4; j++) {
+                Procedure procedure = new Procedure(LocalDate.of(2026, 1, 1).plusDays(j), "Checkup " + j, "", "Dr. Cruz");
+                procedure.setPet(pet);
+                pet.getProcedures().add(procedure);
+            }
+            entityManager.persist(pet);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        SqlRecorder.clear();
+    }
+
+    @Test
+    void summaryPageIsOneStatement() {
+        List<PetSummary> page = repository.findSummariesAfter(0, Limit.of(25));
+
+        assertThat(page).hasSize(25);
+        assertThat(page).allSatisfy(s -> assertThat(s.procedureCount).isEqualTo(Long.parseLong(s.name.substring(4)) % 4));
+        assertThat(SqlRecorder.statements()).hasSize(1);
+    }
+
+    // Same two calls as PawCareService.getPetsWithProceduresAfter, then every procedure is read
+    @Test
+    void pageWithProceduresIsTwoStatementsAtAnySize() {
+        for (int size : new int[]{5, 25}) {
+            entityManager.clear();
+            SqlRecorder.clear();
+
+            List<Pet> pets = repository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(size));
+            repository.fetchProcedures(pets.stream().map(Pet::getId).toList());
+            int procedures = 0;
+            for (Pet pet : pets) {
+                for (Procedure procedure : pet.getProcedures()) {
+                    assertThat(procedure.getProcedure()).startsWith("Checkup");
+                    procedures++;
+                }
+            }
+
+            assertThat(pets).hasSize(size);
+            assertThat(procedures).isPositive();
+            assertThat(SqlRecorder.statements()).as("page of %d", size).hasSize(2);
+        }
+    }
+
+    @Test
+    void detailLoadsProceduresInTheSameStatement() {
+        Long id = repository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(PETS)).get(PETS - 1).getId();
+        entityManager.clear();
+        SqlRecorder.clear();
+
+        Optional<Pet> pet = repository.findWithProceduresById(id);
+
+        assertThat(pet).hasValueSatisfying(p -> {
+            assertThat(Hibernate.isInitialized(p.getProcedures())).isTrue();
+            assertThat(p.getProcedures()).hasSize((PETS - 1) % 4);
+        });
+        assertThat(SqlRecorder.statements()).hasSize(1);
+    }
+}
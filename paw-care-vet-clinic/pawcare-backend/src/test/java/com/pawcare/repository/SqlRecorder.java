@@ -0,0 +1,29 @@
+package com.pawcare.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Statement inspector installed by the test profile: remembers every SQL string Hibernate
+ * prepares, so tests can count statements or EXPLAIN the exact SQL a query method produces.
+ */
+public class SqlRecorder implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+}
@@ -0,0 +1,102 @@
+package com.pawcare.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhotoStorageTest {
+
+    @TempDir
+    Path dir;
+
+    private PhotoStorage storage;
+
+    @AfterEach
+    void shutdown() {
+        if (storage != null) storage.shutdown();
+    }
+
+    @Test
+    void transparentAreasOfAPngTurnWhite() throws Exception {
+        storage = new PhotoStorage(dir.toString(), 16, 1, 10, 50_000_000);
+        String url = storage.store(new ByteArrayInputStream(png(new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB))), "clear.png");
+
+        Path thumb = await(dir.resolve("thumbs").resolve(name(PhotoStorage.thumbnailUrl(url))));
+        int rgb = ImageIO.read(thumb.toFile()).getRGB(8, 8) & 0xFFFFFF;
+        assertThat(rgb >> 16 & 0xFF).isGreaterThan(240);
+        assertThat(rgb & 0xFF).isGreaterThan(240);
+    }
+
+    // A few hundred bytes that declare a 50000x50000 canvas: refused from the header, never decoded
+    @Test
+    void imageOverThePixelLimitGetsNoThumbnail() throws Exception {
+        storage = new PhotoStorage(dir.toString(), 16, 1, 10, 50_000_000);
+        byte[] bomb = withSize(png(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB)), 50_000, 50_000);
+        String url = storage.store(new ByteArrayInputStream(bomb), "bomb.png");
+        String thumbName = name(PhotoStorage.thumbnailUrl(url));
+
+        await(dir.resolve("thumbs").resolve("failed").resolve(thumbName));
+        assertThat(dir.resolve("thumbs").resolve(thumbName)).doesNotExist();
+        assertThat(storage.photoForMissingThumbnail(thumbName)).isEqualTo(name(url));
+    }
+
+    @Test
+    void uploadThatIsNotAnImageHasNoThumbnailUrl() throws Exception {
+        storage = new PhotoStorage(dir.toString(), 16, 1, 10, 50_000_000);
+        String url = storage.store(new ByteArrayInputStream(new byte[]{1, 2, 3}), "notes.txt");
+
+        assertThat(url).endsWith(".bin");
+        assertThat(PhotoStorage.thumbnailUrl(url)).isNull();
+    }
+
+    // Covers a render skipped while the queue was full: asking for the thumbnail queues it again
+    @Test
+    void missingThumbnailIsRenderedOnRequest() throws Exception {
+        storage = new PhotoStorage(dir.toString(), 16, 1, 10, 50_000_000);
+        String url = storage.store(new ByteArrayInputStream(png(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB))), "dog.png");
+        Path thumb = await(dir.resolve("thumbs").resolve(name(PhotoStorage.thumbnailUrl(url))));
+        Files.delete(thumb);
+
+        assertThat(storage.photoForMissingThumbnail(thumb.getFileName().toString())).isEqualTo(name(url));
+        await(thumb);
+        assertThat(storage.photoForMissingThumbnail("0000.jpg")).isNull();
+    }
+
+    private static String name(String url) {
+        return url.substring(url.lastIndexOf('/') + 1);
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    // Rewrites the IHDR width and height (and its CRC); the pixel data is left as it was
+    private static byte[] withSize(byte[] png, int width, int height) {
+        ByteBuffer buf = ByteBuffer.wrap(png);
+        buf.putInt(16, width).putInt(20, height);
+        CRC32 crc = new CRC32();
+        crc.update(png, 12, 17);
+        buf.putInt(29, (int) crc.getValue());
+        return png;
+    }
+
+    private static Path await(Path file) throws InterruptedException {
+        for (int i = 0; i < 100 && !Files.exists(file); i++) Thread.sleep(50);
+        assertThat(file).exists();
+        return file;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pawcare.web;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagsTest {
+
+    @Test
+    void strongTagNamesItsVersion() {
+        assertThat(ETags.expected(ETags.of(3))).isEqualTo(3L);
+        assertThat(ETags.expected(" \"3\" ")).isEqualTo(3L);
+    }
+
+    // If-Match uses strong comparison (RFC 9110 section 8.8.3.2)
+    @Test
+    void weakTagNeverMatches() {
+        assertThat(ETags.expected("W/\"3\"")).isEqualTo(-1L);
+        assertThat(ETags.expected(ETags.collection("abc-1"))).isEqualTo(-1L);
+    }
+
+    @Test
+    void malformedTagNeverMatches() {
+        assertThat(ETags.expected("3")).isEqualTo(-1L);
+        assertThat(ETags.expected("\"x\"")).isEqualTo(-1L);
+        assertThat(ETags.expected("\"3\", \"4\"")).isEqualTo(-1L);
+    }
+
+    @Test
+    void absentHeaderAndStarRequireNoVersion() {
+        assertThat(ETags.expected(null)).isNull();
+        assertThat(ETags.expected(" ")).isNull();
+        assertThat(ETags.expected("*")).isNull();
+    }
+
+    @Test
+    void onlyStarAsksForAnExistingRepresentation() {
+        assertThat(ETags.any("*")).isTrue();
+        assertThat(ETags.any(" * ")).isTrue();
+        assertThat(ETags.any(null)).isFalse();
+        assertThat(ETags.any("\"3\"")).isFalse();
+    }
+}
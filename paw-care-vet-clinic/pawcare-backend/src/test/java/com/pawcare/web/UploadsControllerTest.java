@@ -0,0 +1,77 @@
+package com.pawcare.web;
+
+import com.pawcare.storage.PhotoStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UploadsControllerTest {
+
+    private static final String HASH = "3fa9".repeat(16);
+
+    @TempDir
+    Path dir;
+
+    private PhotoStorage storage;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new PhotoStorage(dir.toString(), 16, 1, 10, 50_000_000);
+        mvc = MockMvcBuilders.standaloneSetup(new UploadsController(dir.toString(), storage)).build();
+    }
+
+    @AfterEach
+    void shutdown() {
+        storage.shutdown();
+    }
+
+    // Names the earlier timestamp + original-filename scheme stored, still referenced from pets.photo
+    @Test
+    void servesLegacyNamesWithSpacesAndPunctuation() throws Exception {
+        for (String name : new String[]{"1700000000000_My Dog (1).jpg", "1700000000001_a+b.png", "1700000000002_caf\u00e9.jpg", "1700000000003_x..y.jpg"}) {
+            try {
+                Files.write(dir.resolve(name), new byte[]{1, 2, 3});
+            } catch (InvalidPathException e) {
+                continue;   // file names here are limited to the platform charset (no UTF-8 locale)
+            }
+            mvc.perform(get("/uploads/{name}", name))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Cache-Control", "public, no-cache"));
+        }
+    }
+
+    @Test
+    void onlyContentNamedFilesAreImmutable() throws Exception {
+        Files.write(dir.resolve(HASH + ".jpg"), new byte[]{1, 2, 3});
+        mvc.perform(get("/uploads/{name}", HASH + ".jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andExpect(header().string("ETag", "\"" + HASH + "\""));
+    }
+
+    @Test
+    void refusesNamesThatLeaveTheDirectory() throws Exception {
+        Files.write(dir.resolve("thumbs").resolve("t.jpg"), new byte[]{1});
+        mvc.perform(get("/uploads/{name}", "..")).andExpect(status().isNotFound());
+        mvc.perform(get("/uploads/thumbs/{name}", "..")).andExpect(status().isNotFound());
+        mvc.perform(get("/uploads/{name}", "thumbs")).andExpect(status().isNotFound());
+
+        assertThat(UploadsController.safeName("../etc/passwd")).isFalse();
+        assertThat(UploadsController.safeName("..\\secret")).isFalse();
+        assertThat(UploadsController.safeName("a\u0000.jpg")).isFalse();
+        assertThat(UploadsController.safeName("")).isFalse();
+    }
+}